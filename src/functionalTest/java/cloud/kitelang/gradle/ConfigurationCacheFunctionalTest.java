@@ -0,0 +1,89 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigurationCacheFunctionalTest {
+
+    private static final String[] INSTALL_WITH_CONFIGURATION_CACHE = {
+            "installDist", "installMinDist", "--configuration-cache", "--configuration-cache-problems=fail"};
+
+    @TempDir
+    Path projectDir;
+
+    @Test
+    void installTasksStoreAndReuseTheConfigurationCacheWithoutProblems() {
+        var project = new ProviderProject(projectDir);
+
+        var first = project.build(INSTALL_WITH_CONFIGURATION_CACHE);
+        assertTrue(first.getOutput().contains("Configuration cache entry stored."), "first run stores the cache entry");
+
+        var second = project.build(INSTALL_WITH_CONFIGURATION_CACHE);
+        assertTrue(second.getOutput().contains("Configuration cache entry reused."), "second run reuses the cache entry");
+        assertEquals(TaskOutcome.UP_TO_DATE, second.task(":installDist").getOutcome());
+        assertEquals(TaskOutcome.UP_TO_DATE, second.task(":installMinDist").getOutcome());
+    }
+
+    @Test
+    void reusedCacheEntryFollowsAddedAndRenamedProviderClasses() throws IOException {
+        var project = new ProviderProject(projectDir).writeBuildScript("""
+                plugins {
+                    id 'cloud.kitelang.provider'
+                }
+
+                repositories {
+                    maven { url = file('repo') }
+                }
+                """);
+        // Stands in for the SDK base class; detection matches base classes by simple name
+        Files.writeString(project.file("src/main/java/demo/ProviderServer.java"), """
+                package demo;
+
+                public abstract class ProviderServer {
+                }
+                """);
+        writeProvider(project, "DemoProvider");
+        var startScript = project.file("build/install/demo/bin/provider");
+
+        var first = project.build(INSTALL_WITH_CONFIGURATION_CACHE);
+        assertTrue(first.getOutput().contains("Configuration cache entry stored."), "first run stores the cache entry");
+        assertTrue(Files.readString(startScript).contains("demo.DemoProvider"), "start script runs the detected class");
+
+        var second = project.build(INSTALL_WITH_CONFIGURATION_CACHE);
+        assertTrue(second.getOutput().contains("Configuration cache entry reused."), "second run reuses the cache entry");
+        assertEquals(TaskOutcome.UP_TO_DATE, second.task(":installDist").getOutcome());
+
+        writeProvider(project, "AddedProvider");
+        var added = project.build(INSTALL_WITH_CONFIGURATION_CACHE);
+        assertTrue(added.getOutput().contains("Configuration cache entry reused."), "the detected class is not baked into the entry");
+        assertTrue(Files.readString(startScript).contains("demo.AddedProvider"), "the added class sorts first and wins");
+
+        Files.delete(project.file("src/main/java/demo/AddedProvider.java"));
+        Files.delete(project.file("src/main/java/demo/DemoProvider.java"));
+        writeProvider(project, "RenamedProvider");
+        var renamed = project.build(INSTALL_WITH_CONFIGURATION_CACHE);
+        assertTrue(renamed.getOutput().contains("Configuration cache entry reused."), "the detected class is not baked into the entry");
+        assertTrue(Files.readString(startScript).contains("demo.RenamedProvider"), "stale classes of the old name are ignored");
+        assertFalse(Files.readString(startScript).contains("demo.DemoProvider"), "start script no longer runs the old class");
+    }
+
+    private static void writeProvider(ProviderProject project, String name) throws IOException {
+        Files.writeString(project.file("src/main/java/demo/" + name + ".java"), """
+                package demo;
+
+                public class %s extends ProviderServer {
+                    public static void main(String[] args) {
+                    }
+                }
+                """.formatted(name));
+    }
+}
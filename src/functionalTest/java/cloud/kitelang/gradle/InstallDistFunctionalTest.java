@@ -0,0 +1,186 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstallDistFunctionalTest {
+
+    @TempDir
+    Path projectDir;
+
+    private ProviderProject project;
+
+    @BeforeEach
+    void createProject() throws IOException {
+        project = new ProviderProject(projectDir).buildScript("""
+                kiteProvider {
+                    directExec = true
+                    budget {
+                        cpus = 2
+                        memory = '256m'
+                    }
+                }
+                """);
+        // Report the JVM settings the launchers are expected to control
+        Files.writeString(project.file("src/main/java/demo/DemoProvider.java"), """
+                package demo;
+
+                public class DemoProvider {
+                    public static void main(String[] args) {
+                        System.out.println("cpus=" + Runtime.getRuntime().availableProcessors()
+                                + " memory=" + System.getProperty("kite.provider.memory"));
+                    }
+                }
+                """);
+    }
+
+    @Test
+    void startScriptAppliesTheResourceBudget() throws Exception {
+        project.build("installDist");
+        var home = project.file("build/install/demo");
+
+        assertEquals("cpus=2 memory=256m", run(home, Map.of(), home.resolve("bin/provider").toString()));
+        assertEquals("cpus=1 memory=128m", run(home, Map.of("KITE_PROVIDER_CPUS", "1", "KITE_PROVIDER_MEMORY", "128m"),
+                home.resolve("bin/provider").toString()));
+        assertEquals("cpus=2 memory=256m", run(home, Map.of("JAVA_OPTS", "-XX:ActiveProcessorCount=1"),
+                home.resolve("bin/provider").toString()), "the budget wins over JAVA_OPTS");
+    }
+
+    @Test
+    void directCommandCarriesTheDefaultBudget() throws Exception {
+        project.build("installDist");
+        var home = project.file("build/install/demo");
+
+        var command = command(home);
+        // The engine looks java up on its PATH; use the JDK running the test
+        command.set(0, Path.of(System.getProperty("java.home"), "bin", command.getFirst()).toString());
+
+        assertEquals("cpus=2 memory=256m", run(home, Map.of(), command.toArray(String[]::new)));
+    }
+
+    @Test
+    void cracLauncherStartsColdOnAJvmWithoutCrac() throws Exception {
+        project.build("prepareCracDist");
+        var home = project.file("build/install/demo-crac");
+        // An image the launcher would restore; the test JDK has no CRaC
+        Files.createDirectories(home.resolve("lib/crac"));
+
+        assertEquals("cpus=2 memory=256m", run(home, Map.of(), home.resolve("bin/provider").toString()));
+    }
+
+    @Test
+    void startScriptKeepsTheWorkingDirectory() throws Exception {
+        Files.writeString(project.file("src/main/java/demo/DemoProvider.java"), """
+                package demo;
+
+                public class DemoProvider {
+                    public static void main(String[] args) {
+                        System.out.println(System.getProperty("user.dir"));
+                    }
+                }
+                """);
+        project.build("installDist");
+        var home = project.file("build/install/demo");
+
+        assertEquals(projectDir.toRealPath().toString(), run(projectDir, Map.of(), home.resolve("bin/provider").toString()));
+    }
+
+    @Test
+    void startScriptLaunchesWithTheArgfileWrittenForItsLocation() throws Exception {
+        project.buildScript("""
+                kiteProvider.directExec = false
+                """);
+        Files.writeString(project.file("src/main/java/demo/DemoProvider.java"), """
+                package demo;
+
+                public class DemoProvider {
+                    public static void main(String[] args) {
+                        System.out.println(String.join(" ", ProcessHandle.current().info().arguments().orElseThrow()));
+                    }
+                }
+                """);
+        project.build("installDist");
+        var home = project.file("build/install/demo").toRealPath();
+        var argfile = home.resolve("lib/provider.args");
+
+        assertEquals("# " + home, Files.readAllLines(argfile).getFirst());
+        assertTrue(run(projectDir, Map.of(), home.resolve("bin/provider").toString()).contains("@" + argfile),
+                "the start script passes the argfile");
+
+        // A moved distribution can't use the absolute entries, so its start script builds the classpath
+        var moved = Files.move(home, projectDir.resolve("moved"));
+        var output = run(projectDir, Map.of(), moved.resolve("bin/provider").toString());
+        assertTrue(output.contains("--class-path=" + moved.resolve("lib")), output);
+    }
+
+    @Test
+    void libJarsKeepTheirModificationTimeWithoutAStartupArchive() throws IOException {
+        project.build("installMinDist");
+
+        try (var jars = Files.newDirectoryStream(project.file("build/install/demo-min/lib"), "*.jar")) {
+            for (var jar : jars) {
+                assertNotEquals(StartupArchive.JAR_TIMESTAMP, Files.getLastModifiedTime(jar), jar.toString());
+            }
+        }
+    }
+
+    @Test
+    void startScriptUsesTheStartupArchiveOfInstallDist() throws Exception {
+        project.buildScript("""
+                kiteProvider.startup.cds = true
+                """);
+        // Print the handshake line, staying up while training so the archive is dumped at exit
+        Files.writeString(project.file("src/main/java/demo/DemoProvider.java"), """
+                package demo;
+
+                public class DemoProvider {
+                    public static void main(String[] args) throws InterruptedException {
+                        System.out.println("1|1|tcp|127.0.0.1:50051");
+                        if ("true".equals(System.getenv("KITE_PROVIDER_TRAINING"))) {
+                            Thread.sleep(60_000);
+                        }
+                    }
+                }
+                """);
+        project.build("installDist");
+        var home = project.file("build/install/demo");
+
+        assertTrue(Files.isRegularFile(home.resolve("lib/" + StartupArchive.CDS.fileName())));
+        try (var jars = Files.newDirectoryStream(home.resolve("lib"), "*.jar")) {
+            for (var jar : jars) {
+                assertEquals(StartupArchive.JAR_TIMESTAMP, Files.getLastModifiedTime(jar), jar.toString());
+            }
+        }
+        var output = run(home, Map.of("JAVA_OPTS", "-Xlog:class+load=info"), home.resolve("bin/provider").toString());
+        assertTrue(output.contains("demo.DemoProvider source: shared objects file (top)"), output);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> command(Path home) throws IOException {
+        var manifest = (Map<String, Object>) ProviderJson.parse(Files.readString(home.resolve("provider.json")));
+        return new ArrayList<>((List<String>) manifest.get("command"));
+    }
+
+    private static String run(Path workingDir, Map<String, String> environment, String... command) throws Exception {
+        var builder = new ProcessBuilder(command).directory(workingDir.toFile());
+        builder.environment().keySet().removeIf(name -> name.startsWith("KITE_PROVIDER_") || name.equals("JAVA_OPTS"));
+        builder.environment().put("JAVA_HOME", System.getProperty("java.home"));
+        builder.environment().putAll(environment);
+        var process = builder.redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        var output = new String(process.getInputStream().readAllBytes()).strip();
+        assertEquals(0, process.waitFor(), output);
+        return output;
+    }
+}
@@ -0,0 +1,44 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstallModeFunctionalTest {
+
+    private static final String SDK_JAR = "kite-provider-sdk-0.1.0.jar";
+
+    @TempDir
+    Path projectDir;
+
+    @Test
+    void switchingFromHardLinksToCopiesLeavesTheCachedJarAlone() throws Exception {
+        var project = new ProviderProject(projectDir).buildScript("""
+                kiteProvider {
+                    installMode = providers.gradleProperty('kiteInstallMode')
+                }
+                """);
+        // The SDK is resolved from a file repository, which Gradle uses in place of a cache copy
+        var cached = project.file("repo/cloud/kitelang/kite-provider-sdk/0.1.0/" + SDK_JAR);
+        var installed = project.file("build/install/demo/lib/" + SDK_JAR);
+        var bytes = Files.readAllBytes(cached);
+        var modified = Files.getLastModifiedTime(cached);
+
+        project.build("installDist", "-PkiteInstallMode=hardlink");
+        assertTrue(Files.isSameFile(cached, installed), "installed as a hard link");
+
+        project.build("installDist", "-PkiteInstallMode=copy");
+
+        assertFalse(Files.isSameFile(cached, installed), "installed as a copy");
+        assertArrayEquals(bytes, Files.readAllBytes(installed));
+        assertArrayEquals(bytes, Files.readAllBytes(cached));
+        assertEquals(modified, Files.getLastModifiedTime(cached));
+    }
+}
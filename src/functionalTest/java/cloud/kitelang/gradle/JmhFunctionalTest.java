@@ -0,0 +1,49 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JmhFunctionalTest {
+
+    @TempDir
+    Path projectDir;
+
+    @Test
+    void reusesTheJmhSourceSetOfAnEarlierPlugin() throws IOException {
+        var project = new ProviderProject(projectDir);
+        // Stands in for me.champeau.jmh, which creates the jmh source set when applied
+        Files.createDirectories(project.file("buildSrc/src/main/groovy"));
+        Files.writeString(project.file("buildSrc/build.gradle"), """
+                plugins {
+                    id 'groovy-gradle-plugin'
+                }
+                """);
+        Files.writeString(project.file("buildSrc/src/main/groovy/demo.jmh.gradle"), """
+                plugins {
+                    id 'java'
+                }
+
+                sourceSets.create('jmh')
+                """);
+        var buildScript = Files.readString(project.file("build.gradle"));
+        project.writeBuildScript(buildScript.replace("plugins {\n", "plugins {\n    id 'demo.jmh'\n") + """
+                tasks.register('printJmhClasspath') {
+                    def classpath = tasks.named('providerJmh').map { it.classpath.asPath }
+                    doLast { println "jmh classpath: ${classpath.get()}" }
+                }
+                """);
+
+        var result = project.build("printJmhClasspath");
+
+        // The earlier plugin brings JMH itself, so the classpath is the bare source set output
+        assertTrue(result.getOutput().contains("jmh classpath: " + project.file("build/classes/java/jmh")), result.getOutput());
+        assertFalse(result.getOutput().contains("jmh-core"), result.getOutput());
+    }
+}
@@ -0,0 +1,50 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KiteFatJarFunctionalTest {
+
+    @TempDir
+    Path projectDir;
+
+    @Test
+    void identicalDuplicatesAreDroppedSilentlyAndConflictsKeepTheApplicationEntry() throws IOException {
+        var project = new ProviderProject(projectDir).buildScript("""
+                dependencies {
+                    implementation files('libs/dependency.jar')
+                }
+                """);
+        var resources = Files.createDirectories(project.file("src/main/resources"));
+        Files.writeString(resources.resolve("identical.txt"), "same");
+        Files.writeString(resources.resolve("conflicting.txt"), "application");
+        Files.createDirectories(project.file("libs"));
+        try (var jar = new JarOutputStream(Files.newOutputStream(project.file("libs/dependency.jar")))) {
+            for (var entry : new String[][]{{"identical.txt", "same"}, {"conflicting.txt", "dependency"}, {"only-in-dependency.txt", "x"}}) {
+                jar.putNextEntry(new ZipEntry(entry[0]));
+                jar.write(entry[1].getBytes());
+                jar.closeEntry();
+            }
+        }
+
+        var output = project.build("kiteFatJar", "--info").getOutput();
+
+        assertTrue(output.contains("kept the first of 1 conflicting duplicate entries"), "only the differing entry conflicts:\n" + output);
+        try (var fatJar = new ZipFile(project.file("build/kite/fatjar/demo-provider.jar").toFile())) {
+            assertEquals("application", new String(fatJar.getInputStream(fatJar.getEntry("conflicting.txt")).readAllBytes()));
+            assertEquals("same", new String(fatJar.getInputStream(fatJar.getEntry("identical.txt")).readAllBytes()));
+            assertTrue(fatJar.getEntry("only-in-dependency.txt") != null, "dependency entries are merged");
+            assertTrue(fatJar.getEntry("demo/DemoProvider.class") != null, "application classes are merged");
+        }
+    }
+}
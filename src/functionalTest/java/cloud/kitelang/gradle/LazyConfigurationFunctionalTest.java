@@ -0,0 +1,50 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyConfigurationFunctionalTest {
+
+    @TempDir
+    Path projectDir;
+
+    @Test
+    void helpRealizesNoneOfThePluginTasks() {
+        // The plugin's tasks are the ones it registers on top of the application plugin's
+        var project = new ProviderProject(projectDir).writeBuildScript("""
+                plugins {
+                    id 'application'
+                    id 'cloud.kitelang.provider' apply false
+                }
+
+                def coreTasks = tasks.names.toSet()
+                apply plugin: 'cloud.kitelang.provider'
+                def pluginTasks = tasks.names - coreTasks
+                println "plugin tasks: ${pluginTasks.size()}"
+                tasks.configureEach { task ->
+                    if (task.name in pluginTasks) {
+                        println "realized plugin task: ${task.name}"
+                    }
+                }
+
+                repositories {
+                    maven { url = file('repo') }
+                }
+
+                kiteProvider {
+                    mainClass = 'demo.DemoProvider'
+                }
+                """);
+
+        var output = project.build("help").getOutput();
+
+        assertFalse(output.contains("plugin tasks: 0"), "the plugin registered tasks");
+        assertTrue(output.contains("plugin tasks: "), "the build script listed the plugin tasks");
+        assertFalse(output.contains("realized plugin task: "), "help realized plugin tasks:\n" + output);
+    }
+}
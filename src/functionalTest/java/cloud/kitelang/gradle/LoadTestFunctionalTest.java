@@ -0,0 +1,30 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadTestFunctionalTest {
+
+    @TempDir
+    Path projectDir;
+
+    @Test
+    void failsClearlyWithoutADriverImplementation() {
+        var project = new ProviderProject(projectDir).buildScript("""
+                kiteProvider {
+                    loadTest {
+                        driverClass = 'demo.LocalDriver'
+                    }
+                }
+                """);
+
+        var result = project.buildAndFail("loadTestProvider");
+
+        assertTrue(result.getOutput().contains("The load test driver demo.LocalDriver is not on the loadTest runtime classpath"),
+                result.getOutput());
+    }
+}
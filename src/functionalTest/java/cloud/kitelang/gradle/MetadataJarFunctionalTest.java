@@ -0,0 +1,34 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetadataJarFunctionalTest {
+
+    @TempDir
+    Path projectDir;
+
+    @Test
+    void versionBumpOnlyRepackagesTheMetadataJar() {
+        var project = new ProviderProject(projectDir).buildScript("""
+                kiteProvider {
+                    separateMetadataJar = true
+                }
+                """);
+
+        project.build("jar", "kiteFatJar", "providerMetadataJar", "-Pversion=1.0.0");
+        var bumped = project.build("jar", "kiteFatJar", "providerMetadataJar", "-Pversion=1.0.1");
+
+        assertEquals(TaskOutcome.UP_TO_DATE, bumped.task(":jar").getOutcome());
+        assertEquals(TaskOutcome.UP_TO_DATE, bumped.task(":kiteFatJar").getOutcome());
+        assertEquals(TaskOutcome.SUCCESS, bumped.task(":providerMetadataJar").getOutcome());
+        assertTrue(Files.exists(project.file("build/libs/demo.jar")), "the main JAR is named without the version");
+    }
+}
@@ -0,0 +1,131 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * A minimal provider project built through Gradle TestKit.
+ * <p>
+ * The Kite provider SDK is replaced by a placeholder JAR in a project-local Maven repository, so
+ * builds need no network access. The Shadow plugin is disabled; the provider JAR is built by
+ * {@code kiteFatJar}.
+ */
+final class ProviderProject {
+
+    private final Path dir;
+
+    ProviderProject(Path dir) {
+        this.dir = dir;
+        try {
+            Files.writeString(dir.resolve("settings.gradle"), "rootProject.name = 'demo'\n");
+            Files.writeString(dir.resolve("gradle.properties"), KiteProviderPlugin.APPLY_SHADOW_PROPERTY + "=false\n");
+            Files.writeString(dir.resolve("build.gradle"), """
+                    plugins {
+                        id 'cloud.kitelang.provider'
+                    }
+
+                    repositories {
+                        maven { url = file('repo') }
+                    }
+
+                    kiteProvider {
+                        mainClass = 'demo.DemoProvider'
+                    }
+                    """);
+            var sources = Files.createDirectories(dir.resolve("src/main/java/demo"));
+            Files.writeString(sources.resolve("DemoProvider.java"), """
+                    package demo;
+
+                    public class DemoProvider {
+                        public static void main(String[] args) {
+                            System.out.println("ready");
+                        }
+                    }
+                    """);
+            publishSdk();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replace the build script.
+     */
+    ProviderProject writeBuildScript(String text) {
+        try {
+            Files.writeString(dir.resolve("build.gradle"), text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Append to the build script.
+     */
+    ProviderProject buildScript(String text) {
+        try {
+            Files.writeString(dir.resolve("build.gradle"), text, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Resolve a path relative to the project directory.
+     */
+    Path file(String path) {
+        return dir.resolve(path);
+    }
+
+    /**
+     * Run a build that is expected to succeed.
+     */
+    BuildResult build(String... arguments) {
+        return GradleRunner.create()
+                .withProjectDir(dir.toFile())
+                .withPluginClasspath()
+                .withArguments(arguments)
+                .forwardOutput()
+                .build();
+    }
+
+    /**
+     * Run a build that is expected to fail.
+     */
+    BuildResult buildAndFail(String... arguments) {
+        return GradleRunner.create()
+                .withProjectDir(dir.toFile())
+                .withPluginClasspath()
+                .withArguments(arguments)
+                .forwardOutput()
+                .buildAndFail();
+    }
+
+    private void publishSdk() throws IOException {
+        var version = "0.1.0";
+        var module = Files.createDirectories(dir.resolve("repo/cloud/kitelang/kite-provider-sdk/" + version));
+        try (var jar = new JarOutputStream(Files.newOutputStream(module.resolve("kite-provider-sdk-" + version + ".jar")))) {
+            jar.putNextEntry(new ZipEntry("cloud/kitelang/provider/placeholder.txt"));
+            jar.write("placeholder".getBytes());
+            jar.closeEntry();
+        }
+        Files.writeString(module.resolve("kite-provider-sdk-" + version + ".pom"), """
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>cloud.kitelang</groupId>
+                    <artifactId>kite-provider-sdk</artifactId>
+                    <version>%s</version>
+                </project>
+                """.formatted(version));
+    }
+}
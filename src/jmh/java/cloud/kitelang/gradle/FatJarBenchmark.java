@@ -0,0 +1,153 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Compares the fat JAR throughput of {@code kiteFatJar} and {@code shadowJar} on a generated
+ * provider project whose runtime classpath holds synthetic dependency JARs.
+ * <p>
+ * Each invocation re-runs only the fat JAR task with {@code --rerun} on a warm Gradle daemon, so
+ * the time covers reading, deduplicating, compressing and writing the entries. With the default
+ * parameters the dependencies hold 150,000 entries and about 300 MB uncompressed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FatJarBenchmark {
+
+    private static final int ENTRY_SIZE = 2048;
+
+    @Param({"kiteFatJar", "shadowJar"})
+    public String task;
+
+    @Param({"150"})
+    public int dependencyJars;
+
+    @Param({"1000"})
+    public int entriesPerJar;
+
+    private Path projectDir;
+    private GradleRunner runner;
+
+    @Setup(Level.Trial)
+    public void createProject() throws IOException {
+        projectDir = Files.createTempDirectory("kite-fat-jar");
+        Files.writeString(projectDir.resolve("settings.gradle"), "rootProject.name = 'demo'\n");
+        Files.writeString(projectDir.resolve("build.gradle"), """
+                plugins {
+                    id 'cloud.kitelang.provider'
+                }
+
+                repositories {
+                    maven { url = file('repo') }
+                }
+
+                dependencies {
+                    implementation fileTree('libs')
+                }
+
+                kiteProvider {
+                    mainClass = 'demo.DemoProvider'
+                }
+                """);
+        var sources = Files.createDirectories(projectDir.resolve("src/main/java/demo"));
+        Files.writeString(sources.resolve("DemoProvider.java"), """
+                package demo;
+
+                public class DemoProvider {
+                    public static void main(String[] args) {
+                    }
+                }
+                """);
+
+        // The SDK is replaced by a placeholder, so the benchmark needs no network access
+        var sdk = Files.createDirectories(projectDir.resolve("repo/cloud/kitelang/kite-provider-sdk/0.1.0"));
+        writeJar(sdk.resolve("kite-provider-sdk-0.1.0.jar"), 1, new Random(0));
+        Files.writeString(sdk.resolve("kite-provider-sdk-0.1.0.pom"), """
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>cloud.kitelang</groupId>
+                    <artifactId>kite-provider-sdk</artifactId>
+                    <version>0.1.0</version>
+                </project>
+                """);
+
+        var libs = Files.createDirectories(projectDir.resolve("libs"));
+        var random = new Random(42);
+        for (int i = 0; i < dependencyJars; i++) {
+            writeJar(libs.resolve("dependency-%03d.jar".formatted(i)), entriesPerJar, random);
+        }
+
+        runner = GradleRunner.create()
+                .withProjectDir(projectDir.toFile())
+                .withPluginClasspath();
+        // Start the daemon and build everything the fat JAR task depends on
+        run();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteProject() throws IOException {
+        try (Stream<Path> paths = Files.walk(projectDir)) {
+            for (var path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public BuildResult fatJar() {
+        return run();
+    }
+
+    private BuildResult run() {
+        return runner.withArguments(task, "--rerun", "--quiet").build();
+    }
+
+    /**
+     * Write a JAR of class-like entries: a random mix of a small vocabulary, which compresses
+     * about as well as real class files.
+     */
+    private static void writeJar(Path jar, int entries, Random random) throws IOException {
+        var vocabulary = new String[]{"java/lang/Object", "<init>", "()V", "Code", "LineNumberTable",
+                "software/amazon/awssdk/core", "io/netty/buffer", "com/google/protobuf", "getValue", "Ljava/lang/String;"};
+        var prefix = jar.getFileName().toString().replace(".jar", "");
+        try (var out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (int i = 0; i < entries; i++) {
+                out.putNextEntry(new ZipEntry("com/example/%s/Class%04d.class".formatted(prefix.replace('-', '_'), i)));
+                var content = new StringBuilder(ENTRY_SIZE);
+                while (content.length() < ENTRY_SIZE) {
+                    content.append(vocabulary[random.nextInt(vocabulary.length)]).append((char) random.nextInt(32));
+                }
+                out.write(content.toString().getBytes(), 0, ENTRY_SIZE);
+                out.closeEntry();
+            }
+        }
+    }
+}
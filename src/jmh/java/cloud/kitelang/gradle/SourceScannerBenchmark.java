@@ -0,0 +1,101 @@
+package cloud.kitelang.gradle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures {@link SourceScanner} on synthetic source trees of 100 files per package, with the
+ * provider class last in name order so that no file is skipped.
+ * <p>
+ * {@code coldScan} starts from an empty index, as on the first build; {@code warmScan} loads the
+ * index a previous scan saved, as on later builds where no source changed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SourceScannerBenchmark {
+
+    private static final int FILES_PER_PACKAGE = 100;
+
+    @Param({"1000", "10000", "100000"})
+    public int files;
+
+    private Path sourceRoot;
+    private Path indexFile;
+
+    @Setup(Level.Trial)
+    public void createSourceTree() throws IOException {
+        var root = Files.createTempDirectory("kite-source-scanner");
+        sourceRoot = root.resolve("src");
+        indexFile = root.resolve("sources.index");
+        for (int i = 0; i < files; i++) {
+            var packageName = "com.example.p%04d".formatted(i / FILES_PER_PACKAGE);
+            var className = "Resource%03d".formatted(i % FILES_PER_PACKAGE);
+            var superClass = i == files - 1 ? "KiteProvider" : "Object";
+            var dir = sourceRoot.resolve(packageName.replace('.', '/'));
+            Files.createDirectories(dir);
+            Files.writeString(dir.resolve(className + ".java"), """
+                    package %s;
+
+                    import java.util.List;
+                    import java.util.Map;
+
+                    /**
+                     * A synthetic resource.
+                     */
+                    public class %s extends %s {
+
+                        private final Map<String, List<String>> properties = Map.of();
+
+                        public Map<String, List<String>> properties() {
+                            return properties;
+                        }
+                    }
+                    """.formatted(packageName, className, superClass));
+        }
+
+        var index = MainClassIndex.load(indexFile);
+        new SourceScanner(index, Long.MAX_VALUE).scan(sourceRoot);
+        index.save(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSourceTree() throws IOException {
+        try (Stream<Path> paths = Files.walk(sourceRoot.getParent())) {
+            for (var path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public String coldScan() throws IOException {
+        return new SourceScanner(MainClassIndex.load(null), Long.MAX_VALUE).scan(sourceRoot);
+    }
+
+    @Benchmark
+    public String warmScan() throws IOException {
+        return new SourceScanner(MainClassIndex.load(indexFile), Long.MAX_VALUE).scan(sourceRoot);
+    }
+}
@@ -0,0 +1,220 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.UntrackedTask;
+import org.gradle.jvm.toolchain.JavaLauncher;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the memory footprint of an installed provider distribution once it is ready, and
+ * fails when the resident set size exceeds the footprint budget.
+ * <p>
+ * The distribution's {@code bin/provider} is started with native memory tracking enabled through
+ * {@code JDK_JAVA_OPTIONS}. After the ready line and a short settle time, the resident set size
+ * is read from {@code /proc/<pid>/status} and the committed heap, metaspace and code cache from
+ * {@code jcmd <pid> VM.native_memory summary}. Linux only.
+ */
+@UntrackedTask(because = "Memory usage depends on the machine and is measured on every run")
+public abstract class BenchmarkProviderFootprint extends DefaultTask {
+
+    private static final Duration SETTLE_TIME = Duration.ofSeconds(1);
+    private static final Duration JCMD_TIMEOUT = Duration.ofSeconds(30);
+    private static final Pattern STATUS_LINE = Pattern.compile("^(VmRSS|VmHWM):\\s+(\\d+) kB$", Pattern.MULTILINE);
+    private static final Pattern NMT_TOTAL = Pattern.compile("^Total: reserved=\\d+KB, committed=(\\d+)KB", Pattern.MULTILINE);
+    private static final Pattern NMT_CATEGORY = Pattern.compile("^-\\s+(.+?) \\(reserved=\\d+KB, committed=(\\d+)KB", Pattern.MULTILINE);
+
+    /**
+     * Root directory of the installed distribution.
+     */
+    @Internal
+    public abstract DirectoryProperty getDistribution();
+
+    /**
+     * A JDK whose {@code jcmd} is used when the provider's own runtime doesn't ship one, e.g. a
+     * jlink runtime image.
+     */
+    @Internal
+    public abstract Property<JavaLauncher> getJavaLauncher();
+
+    /**
+     * Regular expression matching the provider's ready line on stdout.
+     */
+    @Internal
+    public abstract Property<String> getReadyPattern();
+
+    /**
+     * How long the provider may take to become ready.
+     */
+    @Internal
+    public abstract Property<Duration> getReadyTimeout();
+
+    /**
+     * Maximum resident set size, like {@code "256m"}, if any.
+     */
+    @Internal
+    public abstract Property<String> getBudget();
+
+    /**
+     * By how many percent the resident set size may exceed the budget.
+     */
+    @Internal
+    public abstract Property<Integer> getTolerancePercent();
+
+    /**
+     * The JSON report.
+     */
+    @OutputFile
+    public abstract RegularFileProperty getReportFile();
+
+    @TaskAction
+    public void benchmark() {
+        var distribution = getDistribution().get().getAsFile();
+        var launcher = new File(distribution, "bin/provider");
+        try {
+            if (!launcher.canExecute()) {
+                throw new IOException("No executable launcher at " + launcher);
+            }
+            var javaOptions = "-XX:NativeMemoryTracking=summary";
+            var inherited = System.getenv("JDK_JAVA_OPTIONS");
+            if (inherited != null && !inherited.isBlank()) {
+                javaOptions = inherited + " " + javaOptions;
+            }
+
+            Map<String, Long> status;
+            String nativeMemory;
+            try (var provider = ProviderProcess.start(List.of(launcher.getAbsolutePath()), distribution,
+                    Map.of("JDK_JAVA_OPTIONS", javaOptions), getReadyPattern().get())) {
+                provider.awaitReady(getReadyTimeout().get());
+                Thread.sleep(SETTLE_TIME.toMillis());
+                var proc = Path.of("/proc", String.valueOf(provider.pid()));
+                if (!Files.isDirectory(proc)) {
+                    throw new IOException("Measuring the footprint requires /proc, which this system doesn't provide");
+                }
+                status = readStatus(Files.readString(proc.resolve("status")));
+                nativeMemory = jcmd(jcmdFor(proc), provider.pid());
+                provider.stop();
+            }
+
+            var categories = new LinkedHashMap<String, Object>();
+            var matcher = NMT_CATEGORY.matcher(nativeMemory);
+            while (matcher.find()) {
+                categories.put(matcher.group(1), Long.parseLong(matcher.group(2)) * 1024);
+            }
+            var total = NMT_TOTAL.matcher(nativeMemory);
+            var report = new LinkedHashMap<String, Object>();
+            report.put("rssBytes", status.get("VmRSS"));
+            report.put("peakRssBytes", status.get("VmHWM"));
+            report.put("heapCommittedBytes", categories.get("Java Heap"));
+            report.put("metaspaceCommittedBytes", categories.get("Metaspace"));
+            report.put("codeCacheCommittedBytes", categories.get("Code"));
+            report.put("nativeMemoryCommittedBytes", total.find() ? Long.parseLong(total.group(1)) * 1024 : null);
+            report.put("nativeMemoryCategories", categories);
+
+            var reportFile = getReportFile().get().getAsFile().toPath();
+            Files.createDirectories(reportFile.getParent());
+            Files.writeString(reportFile, ProviderJson.write(report));
+            getLogger().lifecycle("Provider footprint: RSS {} MiB (peak {} MiB), heap {} MiB, metaspace {} MiB, code cache {} MiB",
+                    mebibytes(report.get("rssBytes")), mebibytes(report.get("peakRssBytes")),
+                    mebibytes(report.get("heapCommittedBytes")), mebibytes(report.get("metaspaceCommittedBytes")),
+                    mebibytes(report.get("codeCacheCommittedBytes")));
+
+            check(status.get("VmRSS"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to measure the footprint of " + distribution, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while measuring the footprint of " + distribution, e);
+        }
+    }
+
+    private void check(Long rss) {
+        if (!getBudget().isPresent() || rss == null) {
+            return;
+        }
+        var budget = parseSize(getBudget().get());
+        if (rss > budget * (1 + getTolerancePercent().get() / 100.0)) {
+            throw new GradleException("Provider footprint regressed: RSS %d MiB exceeds the budget of %s by more than %d%%. See %s."
+                    .formatted(rss / (1024 * 1024), getBudget().get(), getTolerancePercent().get(), getReportFile().get().getAsFile()));
+        }
+    }
+
+    /**
+     * The {@code jcmd} next to the provider's {@code java}, falling back to the toolchain's.
+     */
+    private File jcmdFor(Path proc) throws IOException {
+        var java = Files.readSymbolicLink(proc.resolve("exe"));
+        var jcmd = java.resolveSibling("jcmd").toFile();
+        if (jcmd.canExecute()) {
+            return jcmd;
+        }
+        return new File(getJavaLauncher().get().getExecutablePath().getAsFile().getParentFile(), "jcmd");
+    }
+
+    private String jcmd(File jcmd, long pid) throws IOException, InterruptedException {
+        var log = new File(getTemporaryDir(), "jcmd.log");
+        var process = new ProcessBuilder(jcmd.getAbsolutePath(), String.valueOf(pid), "VM.native_memory", "summary")
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        if (!process.waitFor(JCMD_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            throw new IOException("jcmd did not finish within " + JCMD_TIMEOUT.toSeconds() + "s");
+        }
+        var output = Files.readString(log.toPath());
+        if (process.exitValue() != 0 || !NMT_TOTAL.matcher(output).find()) {
+            throw new IOException("jcmd VM.native_memory failed with exit code " + process.exitValue() + ":\n" + output);
+        }
+        return output;
+    }
+
+    private static Map<String, Long> readStatus(String status) {
+        var values = new LinkedHashMap<String, Long>();
+        var matcher = STATUS_LINE.matcher(status);
+        while (matcher.find()) {
+            values.put(matcher.group(1), Long.parseLong(matcher.group(2)) * 1024);
+        }
+        return values;
+    }
+
+    private static Object mebibytes(Object bytes) {
+        return bytes instanceof Long value ? value / (1024 * 1024) : "?";
+    }
+
+    /**
+     * Parse a size in the JVM's notation, like {@code "512k"}, {@code "256m"} or {@code "1g"}, into bytes.
+     */
+    static long parseSize(String size) {
+        var value = size.trim().toLowerCase(Locale.ROOT);
+        var multiplier = switch (value.isEmpty() ? ' ' : value.charAt(value.length() - 1)) {
+            case 'k' -> 1024L;
+            case 'm' -> 1024L * 1024;
+            case 'g' -> 1024L * 1024 * 1024;
+            default -> 1L;
+        };
+        var digits = multiplier == 1 ? value : value.substring(0, value.length() - 1);
+        try {
+            return Long.parseLong(digits) * multiplier;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid size '" + size + "'. Use bytes or a k, m or g suffix, like '256m'");
+        }
+    }
+}
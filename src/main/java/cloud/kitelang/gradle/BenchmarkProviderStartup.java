@@ -0,0 +1,188 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.UntrackedTask;
+import org.gradle.api.tasks.options.Option;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures how long installed provider distributions take from process start to the ready line,
+ * and fails when the startup budget or the committed baseline is exceeded.
+ * <p>
+ * Each distribution's {@code bin/provider} is started once as a warm-up, then the configured
+ * number of times, alternating between distributions. The p95 is checked against the budget and
+ * the p50, which is less noisy, against the baseline.
+ */
+@UntrackedTask(because = "Startup timings depend on the machine and are measured on every run")
+public abstract class BenchmarkProviderStartup extends DefaultTask {
+
+    /**
+     * Installed distributions to benchmark, by name.
+     */
+    @Internal
+    public abstract MapProperty<String, Directory> getDistributions();
+
+    /**
+     * Number of measured starts per distribution.
+     */
+    @Internal
+    public abstract Property<Integer> getRuns();
+
+    /**
+     * Regular expression matching the provider's ready line on stdout.
+     */
+    @Internal
+    public abstract Property<String> getReadyPattern();
+
+    /**
+     * How long a single start may take to become ready.
+     */
+    @Internal
+    public abstract Property<Duration> getReadyTimeout();
+
+    /**
+     * Maximum p95 startup time, if any.
+     */
+    @Internal
+    public abstract Property<Duration> getBudget();
+
+    /**
+     * Report to compare the p50 startup times against, if it exists.
+     */
+    @Internal
+    public abstract RegularFileProperty getBaselineFile();
+
+    /**
+     * By how many percent a measurement may exceed the budget or baseline.
+     */
+    @Internal
+    public abstract Property<Integer> getTolerancePercent();
+
+    /**
+     * Whether to replace the baseline with this run's report instead of checking against it.
+     */
+    @Internal
+    @Option(option = "update-baseline", description = "Writes the measured startup times to the baseline file.")
+    public abstract Property<Boolean> getUpdateBaseline();
+
+    /**
+     * The JSON report.
+     */
+    @OutputFile
+    public abstract RegularFileProperty getReportFile();
+
+    public BenchmarkProviderStartup() {
+        getUpdateBaseline().convention(false);
+    }
+
+    @TaskAction
+    public void benchmark() {
+        var distributions = getDistributions().get();
+        var runs = Math.max(1, getRuns().get());
+        var samples = new LinkedHashMap<String, List<Long>>();
+        try {
+            for (var distribution : distributions.entrySet()) {
+                measure(distribution.getValue().getAsFile());
+                samples.put(distribution.getKey(), new ArrayList<>());
+            }
+            for (int i = 0; i < runs; i++) {
+                for (var distribution : distributions.entrySet()) {
+                    samples.get(distribution.getKey()).add(measure(distribution.getValue().getAsFile()));
+                }
+            }
+
+            var results = new LinkedHashMap<String, Object>();
+            samples.forEach((name, millis) -> results.put(name, Percentiles.of(millis).toJson()));
+            var report = new LinkedHashMap<String, Object>();
+            report.put("runs", runs);
+            report.put("distributions", results);
+
+            var reportFile = getReportFile().get().getAsFile().toPath();
+            Files.createDirectories(reportFile.getParent());
+            Files.writeString(reportFile, ProviderJson.write(report));
+            samples.forEach((name, millis) -> {
+                var percentiles = Percentiles.of(millis);
+                getLogger().lifecycle("{}: p50 {} ms, p95 {} ms, max {} ms", name, percentiles.p50(), percentiles.p95(), percentiles.max());
+            });
+
+            if (getUpdateBaseline().get()) {
+                var baseline = getBaselineFile().get().getAsFile().toPath();
+                Files.createDirectories(baseline.getParent());
+                Files.copy(reportFile, baseline, StandardCopyOption.REPLACE_EXISTING);
+                getLogger().lifecycle("Updated startup baseline {}", baseline);
+                return;
+            }
+            check(samples);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to benchmark provider startup", e);
+        }
+    }
+
+    private long measure(File distribution) throws IOException {
+        var launcher = new File(distribution, "bin/provider");
+        if (!launcher.canExecute()) {
+            throw new IOException("No executable launcher at " + launcher);
+        }
+        try (var provider = ProviderProcess.start(List.of(launcher.getAbsolutePath()), distribution, Map.of(),
+                getReadyPattern().get())) {
+            var startup = provider.awaitReady(getReadyTimeout().get());
+            provider.stop();
+            return startup.toMillis();
+        }
+    }
+
+    private void check(Map<String, List<Long>> samples) throws IOException {
+        var tolerance = 1 + getTolerancePercent().get() / 100.0;
+        var violations = new ArrayList<String>();
+
+        if (getBudget().isPresent()) {
+            var budget = getBudget().get().toMillis();
+            samples.forEach((name, millis) -> {
+                var p95 = Percentiles.of(millis).p95();
+                if (p95 > budget * tolerance) {
+                    violations.add("%s: p95 startup %d ms exceeds the budget of %d ms by more than %d%%"
+                            .formatted(name, p95, budget, getTolerancePercent().get()));
+                }
+            });
+        }
+
+        var baselineFile = getBaselineFile().isPresent() ? getBaselineFile().get().getAsFile() : null;
+        if (baselineFile != null && baselineFile.isFile()) {
+            var baseline = (Map<?, ?>) ((Map<?, ?>) ProviderJson.parse(Files.readString(baselineFile.toPath()))).get("distributions");
+            samples.forEach((name, millis) -> {
+                if (baseline == null || !(baseline.get(name) instanceof Map<?, ?> previous)
+                        || !(previous.get("p50Millis") instanceof Number previousP50)) {
+                    return;
+                }
+                var p50 = Percentiles.of(millis).p50();
+                if (p50 > previousP50.doubleValue() * tolerance) {
+                    violations.add("%s: p50 startup %d ms exceeds the baseline of %d ms by more than %d%%"
+                            .formatted(name, p50, previousP50.longValue(), getTolerancePercent().get()));
+                }
+            });
+        }
+
+        if (!violations.isEmpty()) {
+            throw new GradleException("Provider startup regressed:\n  " + String.join("\n  ", violations)
+                    + "\nSee " + getReportFile().get().getAsFile() + ". Run with --update-baseline to accept the new timings.");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+
+import java.time.Duration;
+
+/**
+ * Benchmarks of the built provider distributions and the limits they are checked against.
+ * <p>
+ * Usage in build.gradle:
+ * <pre>
+ * kiteProvider {
+ *     benchmark {
+ *         runs = 20
+ *         startupBudget = java.time.Duration.ofMillis(800)
+ *         footprintBudget = '192m'
+ *     }
+ * }
+ * </pre>
+ */
+public abstract class BenchmarkSpec {
+
+    /**
+     * Number of measured starts per distribution. Defaults to 10.
+     */
+    public abstract Property<Integer> getRuns();
+
+    /**
+     * Maximum p95 startup time, from process start to the ready line, if any.
+     */
+    public abstract Property<Duration> getStartupBudget();
+
+    /**
+     * A committed startup report the p50 startup times are compared against. Ignored if the file
+     * doesn't exist. Defaults to {@code kite/startup-baseline.json} in the project directory.
+     */
+    public abstract RegularFileProperty getStartupBaseline();
+
+    /**
+     * Maximum resident set size of the ready provider, like {@code "256m"}, if any.
+     */
+    public abstract Property<String> getFootprintBudget();
+
+    /**
+     * Version of JMH used by the {@code jmh} source set. Defaults to 1.37.
+     */
+    public abstract Property<String> getJmhVersion();
+
+    /**
+     * By how many percent a measurement may exceed its budget or baseline. Defaults to 10.
+     */
+    public abstract Property<Integer> getTolerancePercent();
+}
@@ -0,0 +1,127 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Pre-merges the runtime dependencies of a provider into a single JAR layer.
+ * <p>
+ * The layer only depends on the resolved runtime classpath, so it is built once, stays up to
+ * date (or comes from the build cache) while only provider classes change, and is then spliced
+ * together with the application classes by {@link SpliceProviderJar}.
+ */
+@CacheableTask
+public abstract class BuildDependencyLayer extends DefaultTask {
+
+    /**
+     * Fixed entry timestamp so that identical inputs produce an identical layer.
+     */
+    static final LocalDateTime ENTRY_TIME = LocalDateTime.of(1980, 2, 1, 0, 0);
+
+    /**
+     * The runtime classpath to merge, in classpath order.
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getClasspath();
+
+    /**
+     * The merged dependency layer.
+     */
+    @OutputFile
+    public abstract RegularFileProperty getLayerFile();
+
+    @TaskAction
+    public void build() {
+        var layerFile = getLayerFile().get().getAsFile().toPath();
+        var merging = new JarMerging();
+        var written = new HashSet<String>();
+
+        try (var out = new ZipOutputStream(Files.newOutputStream(layerFile))) {
+            // Placeholder so the manifest written by the splice step keeps its place as first entry
+            writeEntry(out, JarMerging.MANIFEST, JarMerging.manifest(Map.of()));
+            written.add(JarMerging.MANIFEST);
+
+            for (File file : getClasspath()) {
+                if (file.isDirectory()) {
+                    copyDirectory(file.toPath(), out, merging, written);
+                } else if (file.isFile()) {
+                    copyJar(file, out, merging, written);
+                }
+            }
+
+            for (var service : merging.mergedServiceFiles().entrySet()) {
+                writeEntry(out, service.getKey(), service.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to build dependency layer " + layerFile, e);
+        }
+    }
+
+    private static void copyJar(File jar, ZipOutputStream out, JarMerging merging, Set<String> written)
+            throws IOException {
+        try (var zip = new ZipFile(jar)) {
+            for (var entries = zip.entries(); entries.hasMoreElements(); ) {
+                var entry = entries.nextElement();
+                var entryName = entry.getName();
+                if (JarMerging.isExcluded(entryName)) continue;
+
+                if (JarMerging.isServiceFile(entryName)) {
+                    try (var in = zip.getInputStream(entry)) {
+                        merging.addServiceFile(entryName, in.readAllBytes());
+                    }
+                } else if (written.add(entryName)) {
+                    try (var in = zip.getInputStream(entry)) {
+                        writeEntry(out, entryName, in.readAllBytes());
+                    }
+                }
+            }
+        }
+    }
+
+    private static void copyDirectory(Path dir, ZipOutputStream out, JarMerging merging, Set<String> written)
+            throws IOException {
+        try (var stream = Files.walk(dir)) {
+            for (Path path : stream.sorted().toList()) {
+                if (path.equals(dir)) continue;
+
+                var entryName = dir.relativize(path).toString().replace(File.separatorChar, '/');
+                if (Files.isDirectory(path)) {
+                    entryName += "/";
+                }
+                if (JarMerging.isExcluded(entryName)) continue;
+
+                if (JarMerging.isServiceFile(entryName)) {
+                    merging.addServiceFile(entryName, Files.readAllBytes(path));
+                } else if (written.add(entryName)) {
+                    writeEntry(out, entryName, entryName.endsWith("/") ? new byte[0] : Files.readAllBytes(path));
+                }
+            }
+        }
+    }
+
+    private static void writeEntry(ZipOutputStream out, String entryName, byte[] content) throws IOException {
+        var entry = new ZipEntry(entryName);
+        entry.setTimeLocal(ENTRY_TIME);
+        out.putNextEntry(entry);
+        out.write(content);
+        out.closeEntry();
+    }
+}
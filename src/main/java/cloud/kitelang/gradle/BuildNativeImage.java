@@ -0,0 +1,111 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.jvm.toolchain.JavaLauncher;
+import org.gradle.process.ExecOperations;
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.util.ArrayList;
+
+/**
+ * Builds a native executable from the provider JAR with GraalVM {@code native-image}.
+ * <p>
+ * Reachability metadata collected by the tracing agent is passed with
+ * {@code -H:ConfigurationFileDirectories}; metadata shipped in {@code META-INF/native-image}
+ * of the dependencies is picked up by {@code native-image} itself.
+ */
+@CacheableTask
+public abstract class BuildNativeImage extends DefaultTask {
+
+    /**
+     * The provider JAR, whose {@code Main-Class} is the entry point.
+     */
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getProviderJar();
+
+    /**
+     * Additional classpath entries, e.g. the provider metadata JAR.
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getClasspath();
+
+    /**
+     * A launcher of the GraalVM installation providing {@code native-image}.
+     */
+    @Nested
+    public abstract Property<JavaLauncher> getJavaLauncher();
+
+    /**
+     * Directories of reachability metadata collected by the tracing agent. Missing directories are ignored.
+     */
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract ConfigurableFileCollection getMetadataDirectories();
+
+    /**
+     * Additional arguments passed to {@code native-image}.
+     */
+    @Input
+    public abstract ListProperty<String> getBuildArgs();
+
+    /**
+     * The native executable.
+     */
+    @OutputFile
+    public abstract RegularFileProperty getExecutable();
+
+    @Inject
+    protected abstract ExecOperations getExecOperations();
+
+    @TaskAction
+    public void build() {
+        var graalHome = getJavaLauncher().get().getMetadata().getInstallationPath().getAsFile();
+        var nativeImage = new File(graalHome, "bin/native-image");
+        var executable = getExecutable().get().getAsFile();
+
+        var args = new ArrayList<String>();
+        args.add("--no-fallback");
+        if (!getClasspath().isEmpty()) {
+            args.add("-cp");
+            args.add(getClasspath().getAsPath());
+        }
+        var metadataDirectories = getMetadataDirectories().getFiles().stream()
+                .filter(File::isDirectory)
+                .map(File::getAbsolutePath)
+                .toList();
+        if (!metadataDirectories.isEmpty()) {
+            args.add("-H:+UnlockExperimentalVMOptions");
+            args.add("-H:ConfigurationFileDirectories=" + String.join(",", metadataDirectories));
+            args.add("-H:-UnlockExperimentalVMOptions");
+        }
+        args.addAll(getBuildArgs().get());
+        args.add("-jar");
+        args.add(getProviderJar().get().getAsFile().getAbsolutePath());
+        args.add("-o");
+        args.add(executable.getAbsolutePath());
+
+        executable.getParentFile().mkdirs();
+        getExecOperations().exec(spec -> {
+            spec.setExecutable(nativeImage);
+            spec.setArgs(args);
+            spec.setWorkingDir(getTemporaryDir());
+        });
+    }
+}
@@ -0,0 +1,190 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.jvm.toolchain.JavaLauncher;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Builds a minimal Java runtime image for the provider JAR with {@code jlink}.
+ * <p>
+ * The required modules are found by running {@code jdeps} on the provider JAR and its
+ * classpath, plus the configured additional modules that exist in the JDK. The image is
+ * stripped of debug attributes, header files and man pages, compressed, and gets a default
+ * CDS archive of its own modules.
+ */
+@CacheableTask
+public abstract class BuildRuntimeImage extends DefaultTask {
+
+    /**
+     * A module name: dot-separated Java identifiers.
+     */
+    private static final Pattern MODULE_NAME = Pattern.compile("[\\p{javaJavaIdentifierStart}][\\p{javaJavaIdentifierPart}]*(\\.[\\p{javaJavaIdentifierStart}][\\p{javaJavaIdentifierPart}]*)*");
+
+    /**
+     * The provider JAR to analyze.
+     */
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getProviderJar();
+
+    /**
+     * Additional JARs analyzed with the provider JAR, e.g. the dependencies of a thin provider JAR.
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getClasspath();
+
+    /**
+     * The JDK whose {@code jdeps} and {@code jlink} are used, and whose modules end up in the image.
+     */
+    @Nested
+    public abstract Property<JavaLauncher> getJavaLauncher();
+
+    /**
+     * Modules added to the ones found by {@code jdeps}. Modules missing from the JDK are skipped.
+     */
+    @Input
+    public abstract ListProperty<String> getAdditionalModules();
+
+    /**
+     * Value of the {@code jlink --compress} option, e.g. {@code "zip-6"} for JDK 21+ or {@code "2"}
+     * for older {@code jlink} versions.
+     */
+    @Input
+    public abstract Property<String> getCompression();
+
+    /**
+     * Directory of the generated runtime image.
+     */
+    @OutputDirectory
+    public abstract DirectoryProperty getImageDirectory();
+
+    @Inject
+    protected abstract FileSystemOperations getFileSystemOperations();
+
+    @TaskAction
+    public void build() {
+        var image = getImageDirectory().get().getAsFile().toPath();
+        var metadata = getJavaLauncher().get().getMetadata();
+        var jdkBin = metadata.getInstallationPath().getAsFile().toPath().resolve("bin");
+        try {
+            var modules = new TreeSet<String>();
+            var jdepsCommand = new ArrayList<>(List.of(
+                    jdkBin.resolve("jdeps").toString(),
+                    "--ignore-missing-deps",
+                    "--print-module-deps",
+                    "--multi-release", String.valueOf(metadata.getLanguageVersion().asInt()),
+                    getProviderJar().get().getAsFile().getAbsolutePath()));
+            getClasspath().forEach(jar -> jdepsCommand.add(jar.getAbsolutePath()));
+            modules.addAll(parseModuleDeps(run(jdepsCommand)));
+            modules.add("java.base");
+
+            var available = run(List.of(jdkBin.resolve("java").toString(), "--list-modules")).lines()
+                    .map(line -> line.split("@", 2)[0].strip())
+                    .toList();
+            for (String module : getAdditionalModules().get()) {
+                if (available.contains(module)) {
+                    modules.add(module);
+                } else {
+                    getLogger().info("Skipping module {}, which the JDK doesn't provide", module);
+                }
+            }
+            getLogger().info("Runtime image modules: {}", modules);
+
+            // jlink refuses to write into an existing directory
+            getFileSystemOperations().delete(spec -> spec.delete(image.toFile()));
+            run(List.of(
+                    jdkBin.resolve("jlink").toString(),
+                    "--add-modules", String.join(",", modules),
+                    "--strip-debug",
+                    "--no-header-files",
+                    "--no-man-pages",
+                    "--compress=" + getCompression().get(),
+                    "--generate-cds-archive",
+                    "--output", image.toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to build the runtime image " + image, e);
+        }
+    }
+
+    /**
+     * Parse the stdout of {@code jdeps --print-module-deps}: a single comma-separated list of
+     * module names. Warnings go to stderr, so anything else is an error.
+     */
+    static List<String> parseModuleDeps(String output) throws IOException {
+        var modules = new ArrayList<String>();
+        var list = output.strip();
+        if (!list.isEmpty()) {
+            for (String module : list.split(",")) {
+                module = module.strip();
+                if (!MODULE_NAME.matcher(module).matches()) {
+                    throw new IOException("jdeps printed an invalid module name '" + module + "' in:\n" + list);
+                }
+                modules.add(module);
+            }
+        }
+        return modules;
+    }
+
+    /**
+     * The {@code jlink --compress} value for a JDK version: {@code jlink} 21 introduced the
+     * {@code zip-N} levels, older versions only know the numbered plugins.
+     */
+    static String defaultCompression(int javaVersion) {
+        return javaVersion >= 21 ? "zip-6" : "2";
+    }
+
+    /**
+     * Run a command and return its stdout. Stderr is logged separately and only reported when the
+     * command fails.
+     */
+    private String run(List<String> command) throws IOException {
+        var tool = Path.of(command.getFirst()).getFileName();
+        var log = getTemporaryDir().toPath().resolve(tool + ".log");
+        var errorLog = getTemporaryDir().toPath().resolve(tool + ".err.log");
+        var process = new ProcessBuilder(command)
+                .redirectOutput(log.toFile())
+                .redirectError(errorLog.toFile())
+                .start();
+        try {
+            var exitCode = process.waitFor();
+            var output = Files.readString(log, StandardCharsets.UTF_8);
+            var errors = Files.readString(errorLog, StandardCharsets.UTF_8);
+            if (exitCode != 0) {
+                throw new IOException(tool + " failed with exit code " + exitCode + ":\n" + output + errors);
+            }
+            if (!errors.isBlank()) {
+                getLogger().info("{} reported:\n{}", tool, errors.strip());
+            }
+            return output;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running " + command.getFirst(), e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.UntrackedTask;
+import org.gradle.jvm.toolchain.JavaLauncher;
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates a CRaC checkpoint of a warmed-up provider inside an installed distribution.
+ * <p>
+ * The provider is started from the installed JAR with {@code -XX:CRaCCheckpointTo}, and once it
+ * printed its ready line a checkpoint is requested with {@code jcmd <pid> JDK.checkpoint}, which
+ * dumps the process and terminates it. Restoring requires the same JDK, the same CPU features and
+ * the files open at checkpoint time at the same paths, which is why the image is created in place
+ * at install time rather than being cached.
+ * <p>
+ * Open sockets prevent a checkpoint, so the provider must release its listening socket before the
+ * checkpoint and listen again (and print its handshake line) after restore. The provider is
+ * started with {@code KITE_PROVIDER_CHECKPOINT=true} so it can tell a checkpoint run apart.
+ */
+@UntrackedTask(because = "Checkpoint images are bound to the host and the install location")
+public abstract class CheckpointProvider extends DefaultTask {
+
+    private static final Duration CHECKPOINT_TIMEOUT = Duration.ofSeconds(60);
+
+    /**
+     * Root directory of the installed distribution.
+     */
+    @Internal
+    public abstract DirectoryProperty getInstallDirectory();
+
+    /**
+     * File name of the provider JAR in {@code lib/}.
+     */
+    @Input
+    public abstract Property<String> getJarName();
+
+    /**
+     * Name of the checkpoint image directory in {@code lib/}.
+     */
+    @Input
+    public abstract Property<String> getImageName();
+
+    /**
+     * A CRaC-capable JDK. The distribution's launcher restores with the same JDK.
+     */
+    @Nested
+    public abstract Property<JavaLauncher> getJavaLauncher();
+
+    /**
+     * JVM arguments of the launcher, also used for the checkpoint run.
+     */
+    @Input
+    public abstract ListProperty<String> getJvmArgs();
+
+    /**
+     * Number of CPUs of the default budget, if any. A restored provider keeps the budget of the
+     * checkpoint run.
+     */
+    @Input
+    @Optional
+    public abstract Property<Integer> getCpus();
+
+    /**
+     * Memory of the default budget, if any, e.g. "512m".
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getMemory();
+
+    /**
+     * Regular expression matching the provider's ready line on stdout.
+     */
+    @Input
+    public abstract Property<String> getReadyPattern();
+
+    /**
+     * How long the provider may take to become ready.
+     */
+    @Internal
+    public abstract Property<Duration> getReadyTimeout();
+
+    @Inject
+    protected abstract FileSystemOperations getFileSystemOperations();
+
+    @TaskAction
+    public void checkpoint() {
+        var installDir = getInstallDirectory().get().getAsFile();
+        var image = new File(installDir, "lib/" + getImageName().get());
+        var java = getJavaLauncher().get().getExecutablePath().getAsFile();
+        var jcmd = new File(java.getParentFile(), "jcmd");
+        try {
+            getFileSystemOperations().delete(spec -> spec.delete(image));
+            Files.createDirectories(image.toPath());
+            checkCracSupport(java, image);
+
+            var command = new ArrayList<String>();
+            command.add(java.getAbsolutePath());
+            command.add("-XX:CRaCCheckpointTo=" + image.getAbsolutePath());
+            command.addAll(getJvmArgs().get());
+            command.addAll(GenerateLauncherScript.budgetOptions(getCpus().getOrNull(), getMemory().getOrNull()));
+            command.add("-jar");
+            command.add(new File(installDir, "lib/" + getJarName().get()).getAbsolutePath());
+
+            try (var provider = ProviderProcess.start(command, installDir, Map.of("KITE_PROVIDER_CHECKPOINT", "true"),
+                    getReadyPattern().get())) {
+                var startup = provider.awaitReady(getReadyTimeout().get());
+                getLogger().info("Provider ready after {} ms, requesting checkpoint", startup.toMillis());
+
+                var exitCode = run(List.of(jcmd.getAbsolutePath(), String.valueOf(provider.pid()), "JDK.checkpoint"));
+                if (exitCode != 0) {
+                    throw new IOException("jcmd JDK.checkpoint failed with exit code " + exitCode
+                            + ", see " + new File(getTemporaryDir(), "jcmd.log"));
+                }
+                if (!provider.awaitExit(CHECKPOINT_TIMEOUT)) {
+                    throw new IOException("Provider did not exit within " + CHECKPOINT_TIMEOUT.toSeconds()
+                            + "s after the checkpoint request; it likely holds resources CRaC cannot checkpoint, "
+                            + "see its output above");
+                }
+            }
+
+            try (var files = Files.list(image.toPath())) {
+                if (files.findAny().isEmpty()) {
+                    throw new IOException("The JVM did not write a checkpoint image; see the output of the provider above");
+                }
+            }
+        } catch (IOException e) {
+            getFileSystemOperations().delete(spec -> spec.delete(image));
+            throw new UncheckedIOException("Failed to checkpoint the provider into " + image, e);
+        }
+    }
+
+    private void checkCracSupport(File java, File image) throws IOException {
+        var exitCode = run(List.of(java.getAbsolutePath(), "-XX:CRaCCheckpointTo=" + image.getAbsolutePath(), "-version"));
+        if (exitCode != 0) {
+            throw new IOException(java + " does not support CRaC. Configure a CRaC-capable Java toolchain, "
+                    + "e.g. an Azul Zulu or BellSoft Liberica build with CRaC");
+        }
+    }
+
+    /**
+     * Run a short-lived JDK tool, logging its output to a file in the temporary directory.
+     *
+     * @return the exit code
+     */
+    private int run(List<String> command) throws IOException {
+        var log = new File(getTemporaryDir(), new File(command.getFirst()).getName() + ".log");
+        var process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        try {
+            if (!process.waitFor(CHECKPOINT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                throw new IOException(command.getFirst() + " did not finish within " + CHECKPOINT_TIMEOUT.toSeconds() + "s");
+            }
+            return process.exitValue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running " + command.getFirst(), e);
+        }
+    }
+}
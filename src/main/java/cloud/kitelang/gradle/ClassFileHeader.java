@@ -0,0 +1,101 @@
+package cloud.kitelang.gradle;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * The parts of a compiled class file needed to rebuild the class hierarchy.
+ * <p>
+ * Only the constant pool offsets are recorded while parsing; the UTF-8 entries for
+ * {@code this_class} and {@code super_class} are the only ones ever decoded.
+ *
+ * @param className      internal name of the class (e.g., "com/example/AwsProvider")
+ * @param superClassName internal name of the direct superclass, or null for java/lang/Object
+ * @param accessFlags    class access flags as defined by the JVM specification
+ */
+record ClassFileHeader(String className, String superClassName, int accessFlags) {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+
+    /**
+     * Whether the class can be instantiated, i.e. it is neither abstract nor an interface.
+     */
+    boolean isConcrete() {
+        return (accessFlags & (ACC_INTERFACE | ACC_ABSTRACT)) == 0;
+    }
+
+    /**
+     * The binary name of the class as passed to the java launcher (e.g., "com.example.AwsProvider").
+     */
+    String binaryName() {
+        return className.replace('/', '.');
+    }
+
+    /**
+     * Parse the header of a class file.
+     *
+     * @param bytes the complete class file contents
+     * @throws IOException if the bytes are not a valid class file
+     */
+    static ClassFileHeader parse(byte[] bytes) throws IOException {
+        try {
+            return parseUnchecked(bytes);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Truncated class file", e);
+        }
+    }
+
+    private static ClassFileHeader parseUnchecked(byte[] bytes) throws IOException {
+        if (bytes.length < 10 || readInt(bytes, 0) != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+
+        // Record the offset of every constant pool entry without decoding it
+        var poolCount = readUnsignedShort(bytes, 8);
+        var offsets = new int[poolCount];
+        var pos = 10;
+        for (int i = 1; i < poolCount; i++) {
+            offsets[i] = pos;
+            var tag = bytes[pos] & 0xFF;
+            pos += switch (tag) {
+                case 1 -> 3 + readUnsignedShort(bytes, pos + 1);   // Utf8
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> 5;             // Integer, Float, refs, NameAndType, dynamic
+                case 5, 6 -> 9;                                    // Long, Double
+                case 7, 8, 16, 19, 20 -> 3;                        // Class, String, MethodType, Module, Package
+                case 15 -> 4;                                      // MethodHandle
+                default -> throw new IOException("Unknown constant pool tag " + tag);
+            };
+            if (tag == 5 || tag == 6) {
+                i++; // 8-byte constants occupy two slots
+            }
+        }
+
+        var accessFlags = readUnsignedShort(bytes, pos);
+        var thisClass = readUnsignedShort(bytes, pos + 2);
+        var superClass = readUnsignedShort(bytes, pos + 4);
+
+        return new ClassFileHeader(
+                className(bytes, offsets, thisClass),
+                superClass == 0 ? null : className(bytes, offsets, superClass),
+                accessFlags);
+    }
+
+    private static String className(byte[] bytes, int[] offsets, int classIndex) throws IOException {
+        var nameIndex = readUnsignedShort(bytes, offsets[classIndex] + 1);
+        var utf8Offset = offsets[nameIndex];
+        var length = readUnsignedShort(bytes, utf8Offset + 1);
+        // readUTF expects the two length bytes in front of the modified UTF-8 data
+        return new DataInputStream(new ByteArrayInputStream(bytes, utf8Offset + 1, length + 2)).readUTF();
+    }
+
+    private static int readUnsignedShort(byte[] bytes, int pos) {
+        return ((bytes[pos] & 0xFF) << 8) | (bytes[pos + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] bytes, int pos) {
+        return (readUnsignedShort(bytes, pos) << 16) | readUnsignedShort(bytes, pos + 2);
+    }
+}
@@ -0,0 +1,175 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.UntrackedTask;
+import org.gradle.jvm.toolchain.JavaLauncher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measures the time from process start to the provider's ready line with and without the
+ * startup archive, and writes the comparison as JSON.
+ * <p>
+ * Runs alternate between the two variants after one discarded warm-up run of each, so both see
+ * the same file system cache state.
+ */
+@UntrackedTask(because = "Startup timings depend on the machine and are measured on every run")
+public abstract class CompareProviderStartup extends DefaultTask {
+
+    /**
+     * The provider JAR the archive was trained with.
+     */
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getProviderJar();
+
+    /**
+     * JARs referenced from the provider JAR's {@code Class-Path} manifest attribute, staged next to it.
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getClasspath();
+
+    /**
+     * The JDK the archive was created with.
+     */
+    @Nested
+    public abstract Property<JavaLauncher> getJavaLauncher();
+
+    /**
+     * JVM arguments of the launcher.
+     */
+    @Input
+    public abstract ListProperty<String> getJvmArgs();
+
+    /**
+     * Kind of the archive.
+     */
+    @Input
+    public abstract Property<StartupArchive> getStartupArchive();
+
+    /**
+     * The archive to compare against a plain start.
+     */
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getArchiveFile();
+
+    /**
+     * Regular expression matching the provider's ready line on stdout.
+     */
+    @Input
+    public abstract Property<String> getReadyPattern();
+
+    /**
+     * How long a single start may take to become ready.
+     */
+    @Internal
+    public abstract Property<Duration> getReadyTimeout();
+
+    /**
+     * Number of measured starts per variant. Defaults to 5.
+     */
+    @Input
+    public abstract Property<Integer> getRuns();
+
+    /**
+     * The JSON report.
+     */
+    @OutputFile
+    public abstract RegularFileProperty getReportFile();
+
+    public CompareProviderStartup() {
+        getRuns().convention(5);
+    }
+
+    @TaskAction
+    public void compare() {
+        var report = getReportFile().get().getAsFile().toPath();
+        try {
+            var jar = StartupArchive.stageJars(getProviderJar().get().getAsFile().toPath(), getClasspath(), getTemporaryDir().toPath().resolve("lib"));
+            var archive = getStartupArchive().get();
+            var archiveOption = archive.jvmOption(getArchiveFile().get().getAsFile().getAbsolutePath());
+            var runs = Math.max(1, getRuns().get());
+
+            measure(List.of(), jar);
+            measure(List.of(archiveOption), jar);
+
+            var baseline = new ArrayList<Long>();
+            var archived = new ArrayList<Long>();
+            for (int i = 0; i < runs; i++) {
+                baseline.add(measure(List.of(), jar));
+                archived.add(measure(List.of(archiveOption), jar));
+            }
+
+            var baselineMedian = median(baseline);
+            var archivedMedian = median(archived);
+            var improvement = baselineMedian == 0 ? 0 : 100.0 * (baselineMedian - archivedMedian) / baselineMedian;
+
+            var fields = new LinkedHashMap<String, Object>();
+            fields.put("archive", archive.name().toLowerCase(Locale.ROOT));
+            fields.put("javaVersion", getJavaLauncher().get().getMetadata().getJavaRuntimeVersion());
+            fields.put("runs", runs);
+            fields.put("baseline", summary(baseline));
+            fields.put("archived", summary(archived));
+            fields.put("improvementPercent", Math.round(improvement * 10) / 10.0);
+
+            Files.createDirectories(report.getParent());
+            Files.writeString(report, ProviderJson.write(fields));
+            getLogger().lifecycle("Provider startup: {} ms without and {} ms with the {} archive (median of {} runs), see {}",
+                    baselineMedian, archivedMedian, archive.name().toLowerCase(Locale.ROOT), runs, report);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compare provider startup", e);
+        }
+    }
+
+    private long measure(List<String> archiveOptions, Path jar) throws IOException {
+        var command = new ArrayList<String>();
+        command.add(getJavaLauncher().get().getExecutablePath().getAsFile().getAbsolutePath());
+        command.addAll(archiveOptions);
+        command.addAll(getJvmArgs().get());
+        command.add("-jar");
+        command.add(jar.toString());
+
+        try (var provider = ProviderProcess.start(command, getTemporaryDir(), Map.of(), getReadyPattern().get())) {
+            var startup = provider.awaitReady(getReadyTimeout().get());
+            provider.stop();
+            return startup.toMillis();
+        }
+    }
+
+    private static long median(List<Long> samples) {
+        var sorted = samples.stream().sorted().toList();
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static Map<String, Object> summary(List<Long> samples) {
+        var fields = new LinkedHashMap<String, Object>();
+        fields.put("medianMillis", median(samples));
+        fields.put("minMillis", samples.stream().mapToLong(Long::longValue).min().orElse(0));
+        fields.put("maxMillis", samples.stream().mapToLong(Long::longValue).max().orElse(0));
+        fields.put("samplesMillis", samples);
+        return fields;
+    }
+}
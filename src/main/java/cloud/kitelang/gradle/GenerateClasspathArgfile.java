@@ -0,0 +1,79 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Generates a Java {@code @argfile} with the {@code -cp} option of a distribution, so the JVM
+ * can be launched as {@code java @lib/provider.args <main class>} without a shell, as the
+ * {@code directExec} command does.
+ * <p>
+ * The java launcher resolves relative paths in an argfile against the working directory, so the
+ * entries are relative to the distribution root and the JVM must be started from there. Once
+ * installed, {@code installDist} rewrites the argfile with absolute entries for the start script.
+ * Entries are separated with {@code :}, for Unix-like systems.
+ */
+@CacheableTask
+public abstract class GenerateClasspathArgfile extends DefaultTask {
+
+    /**
+     * File names of the classpath entries, in classpath order.
+     */
+    @Input
+    public abstract ListProperty<String> getClasspath();
+
+    /**
+     * Directory of the classpath entries, relative to the distribution root. Defaults to "lib".
+     */
+    @Input
+    public abstract Property<String> getDirectory();
+
+    /**
+     * The generated argfile.
+     */
+    @OutputFile
+    public abstract RegularFileProperty getArgfile();
+
+    public GenerateClasspathArgfile() {
+        getDirectory().convention("lib");
+    }
+
+    @TaskAction
+    public void generate() {
+        var classpath = getClasspath().get().stream()
+                .map(entry -> getDirectory().get() + "/" + entry)
+                .toList();
+        try {
+            var argfile = getArgfile().get().getAsFile().toPath();
+            Files.createDirectories(argfile.getParent());
+            Files.writeString(argfile, argfile(classpath));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the classpath argfile", e);
+        }
+    }
+
+    /**
+     * The argfile passing the given classpath entries.
+     */
+    static String argfile(List<String> classpath) {
+        return "-cp\n" + quote(String.join(":", classpath)) + "\n";
+    }
+
+    /**
+     * Quote an argfile argument; backslashes and double quotes are escaped inside quotes.
+     */
+    static String quote(String argument) {
+        return "\"" + argument.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,229 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the {@code bin/provider} launcher script of the minimized distributions, which runs
+ * the provider JAR from {@code lib/} with the {@code java} on the PATH or a bundled runtime.
+ * <p>
+ * The launcher translates the resource budget in {@code KITE_PROVIDER_CPUS} and
+ * {@code KITE_PROVIDER_MEMORY}, defaulting to the configured budget, into JVM options, so
+ * providers sharing a host don't each size themselves to the whole machine.
+ */
+@CacheableTask
+public abstract class GenerateLauncherScript extends DefaultTask {
+
+    /**
+     * Share of the memory budget given to the heap, in percent.
+     */
+    static final int BUDGET_HEAP_PERCENTAGE = 75;
+
+    /**
+     * Valid CPU budgets, in the basic regular expression syntax of {@code expr} and in Java.
+     */
+    private static final String CPUS_PATTERN = "[1-9][0-9]*";
+
+    /**
+     * Valid memory budgets: a JVM size with an optional unit. {@code expr} spells the optional
+     * unit as a bounded repetition.
+     */
+    private static final String MEMORY_PATTERN = "[1-9][0-9]*[kKmMgG]?";
+
+    /**
+     * File name of the provider JAR in {@code lib/}.
+     */
+    @Input
+    public abstract Property<String> getJarName();
+
+    /**
+     * JVM arguments passed before {@code -jar}.
+     */
+    @Input
+    public abstract ListProperty<String> getJvmArgs();
+
+    /**
+     * Kind of the startup archive shipped in {@code lib/}, if any.
+     */
+    @Input
+    @Optional
+    public abstract Property<StartupArchive> getStartupArchive();
+
+    /**
+     * Directory of a bundled Java runtime, relative to the distribution root. If absent, the
+     * {@code java} command on the PATH is used.
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getRuntimeDirectory();
+
+    /**
+     * Name of a CRaC checkpoint image directory in {@code lib/}. When it exists and no arguments
+     * are passed, the launcher restores the checkpoint, falling back to a cold start if the JVM
+     * cannot restore it. CRaC JDKs are rarely the default {@code java}, so such a launcher prefers
+     * {@code $JAVA_HOME/bin/java}, like the start scripts.
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getCracImage();
+
+    /**
+     * Number of CPUs used when {@code KITE_PROVIDER_CPUS} is not set, if any.
+     */
+    @Input
+    @Optional
+    public abstract Property<Integer> getDefaultCpus();
+
+    /**
+     * Memory budget used when {@code KITE_PROVIDER_MEMORY} is not set, if any.
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getDefaultMemory();
+
+    /**
+     * The generated launcher script.
+     */
+    @OutputFile
+    public abstract RegularFileProperty getScriptFile();
+
+    @TaskAction
+    public void generate() {
+        var args = new ArrayList<String>();
+        getJvmArgs().get().forEach(arg -> args.add(quote(arg)));
+        if (getStartupArchive().isPresent()) {
+            var archive = getStartupArchive().get();
+            args.add("\"" + archive.jvmOption("$APP_HOME/lib/" + archive.fileName()) + "\"");
+            // Keep JVM warnings (e.g. an archive built by another JDK) off stdout, which carries the handshake
+            args.add("-Xlog:disable");
+            args.add("-Xlog:all=warning:stderr");
+        }
+
+        String java;
+        if (getRuntimeDirectory().isPresent()) {
+            java = "\"$APP_HOME/" + getRuntimeDirectory().get() + "/bin/java\"";
+        } else if (getCracImage().isPresent()) {
+            java = "\"${JAVA_HOME:+$JAVA_HOME/bin/}java\"";
+        } else {
+            java = "java";
+        }
+        // Budget options come last, so they win over the fixed ones; the values are validated, so no quoting is needed
+        args.add("$BUDGET_OPTS");
+        var javaArgs = "%s -jar \"$APP_HOME/lib/%s\" \"$@\"".formatted(String.join(" ", args), getJarName().get());
+
+        var script = new StringBuilder("""
+                #!/bin/sh
+                APP_HOME="$(cd "$(dirname "$0")/.." && pwd)"
+                """);
+        appendBudget(script);
+        if (getCracImage().isPresent()) {
+            // A restored process keeps the arguments of the checkpoint run, so only restore without arguments.
+            // A JVM without CRaC ignores the restore options and starts cold instead of rejecting them.
+            script.append("""
+                    if [ $# -eq 0 ] && [ -d "$APP_HOME/lib/%s" ]; then
+                        exec %s -XX:+IgnoreUnrecognizedVMOptions "-XX:CRaCRestoreFrom=$APP_HOME/lib/%s" -XX:+CRaCIgnoreRestoreIfUnavailable %s
+                    fi
+                    """.formatted(getCracImage().get(), java, getCracImage().get(), javaArgs));
+        }
+        script.append("exec ").append(java).append(' ').append(javaArgs).append('\n');
+
+        try {
+            var scriptFile = getScriptFile().get().getAsFile().toPath();
+            Files.createDirectories(scriptFile.getParent());
+            Files.writeString(scriptFile, script.toString());
+            scriptFile.toFile().setExecutable(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create launcher script", e);
+        }
+    }
+
+    private void appendBudget(StringBuilder script) {
+        script.append(budgetScript(getDefaultCpus().getOrNull(), getDefaultMemory().getOrNull()));
+    }
+
+    /**
+     * Shell code setting {@code BUDGET_OPTS} to the JVM options of the budget in
+     * {@code KITE_PROVIDER_CPUS} and {@code KITE_PROVIDER_MEMORY}, which default to the given
+     * budget if any. Invalid values are reported on stderr and ignored.
+     */
+    static String budgetScript(Integer defaultCpus, String defaultMemory) {
+        var script = new StringBuilder();
+        if (defaultCpus != null) {
+            script.append("KITE_PROVIDER_CPUS=\"${KITE_PROVIDER_CPUS:-%d}\"\n".formatted(defaultCpus));
+        }
+        if (defaultMemory != null) {
+            script.append("KITE_PROVIDER_MEMORY=\"${KITE_PROVIDER_MEMORY:-%s}\"\n".formatted(defaultMemory));
+        }
+        script.append("""
+                BUDGET_OPTS=""
+                if [ -n "${KITE_PROVIDER_CPUS:-}" ]; then
+                    if expr "$KITE_PROVIDER_CPUS" : '%s$' >/dev/null; then
+                        BUDGET_OPTS="%s"
+                    else
+                        echo "Ignoring invalid KITE_PROVIDER_CPUS=$KITE_PROVIDER_CPUS" >&2
+                    fi
+                fi
+                if [ -n "${KITE_PROVIDER_MEMORY:-}" ]; then
+                    if expr "$KITE_PROVIDER_MEMORY" : '%s$' >/dev/null; then
+                        BUDGET_OPTS="$BUDGET_OPTS %s"
+                    else
+                        echo "Ignoring invalid KITE_PROVIDER_MEMORY=$KITE_PROVIDER_MEMORY" >&2
+                    fi
+                fi
+                """.formatted(CPUS_PATTERN, String.join(" ", cpuBudgetOptions("$KITE_PROVIDER_CPUS")),
+                MEMORY_PATTERN.replace("?", "\\{0,1\\}"), String.join(" ", memoryBudgetOptions("$KITE_PROVIDER_MEMORY"))));
+        return script.toString();
+    }
+
+    /**
+     * The JVM options of a budget, for launches without a shell; values the launchers would
+     * ignore are rejected.
+     */
+    static List<String> budgetOptions(Integer cpus, String memory) {
+        var options = new ArrayList<String>();
+        if (cpus != null) {
+            if (!String.valueOf(cpus).matches(CPUS_PATTERN)) {
+                throw new IllegalArgumentException("Invalid kiteProvider.budget.cpus " + cpus);
+            }
+            options.addAll(cpuBudgetOptions(String.valueOf(cpus)));
+        }
+        if (memory != null) {
+            if (!memory.matches(MEMORY_PATTERN)) {
+                throw new IllegalArgumentException("Invalid kiteProvider.budget.memory '" + memory + "'");
+            }
+            options.addAll(memoryBudgetOptions(memory));
+        }
+        return options;
+    }
+
+    private static List<String> cpuBudgetOptions(String cpus) {
+        return List.of("-XX:ActiveProcessorCount=" + cpus, "-Dio.netty.eventLoopThreads=" + cpus, "-Dkite.provider.cpus=" + cpus);
+    }
+
+    private static List<String> memoryBudgetOptions(String memory) {
+        return List.of("-XX:MaxRAM=" + memory, "-XX:MaxRAMPercentage=" + BUDGET_HEAP_PERCENTAGE, "-Dkite.provider.memory=" + memory);
+    }
+
+    /**
+     * Quote an argument for a POSIX shell.
+     */
+    static String quote(String arg) {
+        if (arg.matches("[A-Za-z0-9_@%+=:,./-]+")) {
+            return arg;
+        }
+        return "'" + arg.replace("'", "'\\''") + "'";
+    }
+}
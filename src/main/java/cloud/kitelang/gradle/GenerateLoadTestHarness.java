@@ -0,0 +1,159 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+/**
+ * Generates the sources of the load test harness into the {@code loadTest} source set: the
+ * {@code LoadTestDriver} interface implemented by the provider author, and the
+ * {@code LoadTestHarness} main class run by {@link LoadTestProvider}.
+ * <p>
+ * The harness keeps the configured number of calls in flight, picks each call's RPC by the
+ * configured weights, and appends one {@code <rpc> <latency-micros> ok|error} line per measured
+ * call to the latency log.
+ */
+@CacheableTask
+public abstract class GenerateLoadTestHarness extends DefaultTask {
+
+    static final String HARNESS_CLASS = "cloud.kitelang.loadtest.LoadTestHarness";
+
+    private static final String DRIVER_SOURCE = """
+            package cloud.kitelang.loadtest;
+
+            /**
+             * Performs single RPCs against a running provider, standing in for the Kite engine.
+             * Implementations need a public no-argument constructor and must be thread-safe.
+             */
+            public interface LoadTestDriver extends AutoCloseable {
+
+                /**
+                 * Connect to the provider.
+                 *
+                 * @param network         {@code tcp} or {@code unix}, from the handshake line
+                 * @param address         the address from the handshake line
+                 * @param protocolVersion the provider protocol version
+                 */
+                void connect(String network, String address, int protocolVersion) throws Exception;
+
+                /**
+                 * Perform one call of the given RPC, e.g. {@code create}. Exceptions count as errors.
+                 */
+                void call(String rpc) throws Exception;
+
+                @Override
+                default void close() throws Exception {
+                }
+            }
+            """;
+
+    private static final String HARNESS_SOURCE = """
+            package cloud.kitelang.loadtest;
+
+            import java.io.PrintWriter;
+            import java.nio.file.Files;
+            import java.nio.file.Path;
+            import java.util.ArrayList;
+            import java.util.List;
+            import java.util.concurrent.ThreadLocalRandom;
+            import java.util.concurrent.atomic.AtomicBoolean;
+
+            /**
+             * Replays a weighted mix of RPCs through a {@link LoadTestDriver} at a fixed concurrency.
+             * Generated by the Kite provider Gradle plugin; configured with {@code kite.loadTest.*}
+             * system properties.
+             */
+            public final class LoadTestHarness {
+
+                public static void main(String[] args) throws Exception {
+                    var driverClass = System.getProperty("kite.loadTest.driver");
+                    var concurrency = Integer.getInteger("kite.loadTest.concurrency");
+                    var warmupNanos = Long.getLong("kite.loadTest.warmupMillis") * 1_000_000;
+                    var durationNanos = Long.getLong("kite.loadTest.durationMillis") * 1_000_000;
+                    var latencyLog = Path.of(System.getProperty("kite.loadTest.latencyLog"));
+
+                    var rpcs = new ArrayList<String>();
+                    for (var entry : System.getProperty("kite.loadTest.mix").split(",")) {
+                        var parts = entry.split("=", 2);
+                        for (int i = 0; i < Integer.parseInt(parts[1]); i++) {
+                            rpcs.add(parts[0]);
+                        }
+                    }
+
+                    var driverType = Class.forName(driverClass);
+                    if (!LoadTestDriver.class.isAssignableFrom(driverType)) {
+                        throw new IllegalArgumentException(driverClass + " does not implement " + LoadTestDriver.class.getName());
+                    }
+                    var driver = (LoadTestDriver) driverType.getConstructor().newInstance();
+                    try (driver) {
+                        driver.connect(System.getProperty("kite.loadTest.network"), System.getProperty("kite.loadTest.address"),
+                                Integer.getInteger("kite.loadTest.protocolVersion"));
+
+                        var firstError = new AtomicBoolean();
+                        var measureFrom = System.nanoTime() + warmupNanos;
+                        var until = measureFrom + durationNanos;
+                        var workers = new ArrayList<Thread>();
+                        var results = new ArrayList<StringBuilder>();
+                        for (int w = 0; w < concurrency; w++) {
+                            var result = new StringBuilder();
+                            results.add(result);
+                            // Plain threads, as the harness is compiled for the project's Java version
+                            var worker = new Thread(() -> {
+                                var random = ThreadLocalRandom.current();
+                                long start;
+                                while ((start = System.nanoTime()) < until) {
+                                    var rpc = rpcs.get(random.nextInt(rpcs.size()));
+                                    var outcome = "ok";
+                                    try {
+                                        driver.call(rpc);
+                                    } catch (Exception e) {
+                                        outcome = "error";
+                                        if (firstError.compareAndSet(false, true)) {
+                                            System.err.println("First failed " + rpc + " call:");
+                                            e.printStackTrace();
+                                        }
+                                    }
+                                    if (start >= measureFrom) {
+                                        result.append(rpc).append(' ').append((System.nanoTime() - start) / 1000)
+                                                .append(' ').append(outcome).append('\\n');
+                                    }
+                                }
+                            }, "load-test-" + w);
+                            worker.start();
+                            workers.add(worker);
+                        }
+                        for (var worker : workers) {
+                            worker.join();
+                        }
+                        try (var out = new PrintWriter(Files.newBufferedWriter(latencyLog))) {
+                            results.forEach(out::append);
+                        }
+                    }
+                }
+            }
+            """;
+
+    /**
+     * Source directory the harness is generated into.
+     */
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDirectory();
+
+    @TaskAction
+    public void generate() {
+        var packageDir = getOutputDirectory().dir("cloud/kitelang/loadtest").get().getAsFile().toPath();
+        try {
+            Files.createDirectories(packageDir);
+            Files.writeString(packageDir.resolve("LoadTestDriver.java"), DRIVER_SOURCE);
+            Files.writeString(packageDir.resolve("LoadTestHarness.java"), HARNESS_SOURCE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to generate the load test harness", e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Generates a JDK AOT cache for the provider JAR with a training run. Requires JDK 24 or later.
+ * <p>
+ * The provider is first run with {@code -XX:AOTMode=record} until it printed its ready line,
+ * which writes an AOT configuration when the JVM exits. A second JVM then creates the cache
+ * from it with {@code -XX:AOTMode=create}, without running the provider. The two-step workflow
+ * is used rather than {@code -XX:AOTCacheOutput} because it works on every JDK supporting AOT caches.
+ */
+@CacheableTask
+public abstract class GenerateProviderAotCache extends ProviderTrainingTask {
+
+    @TaskAction
+    public void generate() {
+        var archive = getArchiveFile().get().getAsFile().toPath();
+        try {
+            var trainingJar = stageProviderJar();
+            var configuration = getTemporaryDir().toPath().resolve("provider.aotconf");
+            Files.deleteIfExists(configuration);
+            Files.deleteIfExists(archive);
+
+            train(List.of("-XX:AOTMode=record", "-XX:AOTConfiguration=" + configuration), trainingJar);
+            if (!Files.isRegularFile(configuration)) {
+                throw new IOException("The JVM did not write the AOT configuration; see the output of the training run above");
+            }
+
+            var log = getTemporaryDir().toPath().resolve("create.log");
+            var command = javaCommand(List.of(
+                    "-XX:AOTMode=create",
+                    "-XX:AOTConfiguration=" + configuration,
+                    "-XX:AOTCache=" + archive.toAbsolutePath()), trainingJar);
+            var process = new ProcessBuilder(command)
+                    .directory(getTemporaryDir())
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile())
+                    .start();
+            var exitCode = process.waitFor();
+            if (exitCode != 0 || !Files.isRegularFile(archive)) {
+                throw new IOException("Creating the AOT cache failed with exit code " + exitCode + ", see " + log);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while creating AOT cache " + archive, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to generate AOT cache " + archive, e);
+        }
+    }
+}
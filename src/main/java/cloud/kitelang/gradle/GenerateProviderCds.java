@@ -0,0 +1,36 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Generates an AppCDS archive for the provider JAR with a training run.
+ * <p>
+ * The provider is started with {@code -XX:ArchiveClassesAtExit}, stopped once it printed its
+ * ready line, and the classes loaded up to that point are dumped when the JVM exits.
+ */
+@CacheableTask
+public abstract class GenerateProviderCds extends ProviderTrainingTask {
+
+    @TaskAction
+    public void generate() {
+        var archive = getArchiveFile().get().getAsFile().toPath();
+        try {
+            var trainingJar = stageProviderJar();
+            Files.deleteIfExists(archive);
+
+            train(List.of("-XX:ArchiveClassesAtExit=" + archive.toAbsolutePath()), trainingJar);
+
+            if (!Files.isRegularFile(archive)) {
+                throw new IOException("The JVM did not write the CDS archive; see the output of the training run above");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to generate CDS archive " + archive, e);
+        }
+    }
+}
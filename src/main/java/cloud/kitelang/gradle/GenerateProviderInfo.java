@@ -0,0 +1,59 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+/**
+ * Generates {@code META-INF/kite/provider.json} as a resource, so the provider can read its
+ * name and version at runtime.
+ */
+@CacheableTask
+public abstract class GenerateProviderInfo extends DefaultTask {
+
+    /**
+     * The provider name.
+     */
+    @Input
+    public abstract Property<String> getProviderName();
+
+    /**
+     * The provider version.
+     */
+    @Input
+    public abstract Property<String> getProviderVersion();
+
+    /**
+     * The protocol version for provider communication.
+     */
+    @Input
+    public abstract Property<Integer> getProtocolVersion();
+
+    /**
+     * Resource directory the {@code META-INF/kite/provider.json} file is generated into.
+     */
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDirectory();
+
+    @TaskAction
+    public void generate() {
+        var providerJson = getOutputDirectory().file("META-INF/kite/provider.json").get().getAsFile().toPath();
+        var content = ProviderJson.write(ProviderJson.metadata(
+                getProviderName().get(), getProviderVersion().get(), getProtocolVersion().get()));
+
+        try {
+            Files.createDirectories(providerJson.getParent());
+            Files.writeString(providerJson, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write provider.json", e);
+        }
+    }
+}
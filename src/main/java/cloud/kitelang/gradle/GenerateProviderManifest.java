@@ -0,0 +1,108 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+
+/**
+ * Generates the {@code provider.json} manifest placed at the root of a provider distribution,
+ * used by the engine to discover and launch the provider.
+ */
+@CacheableTask
+public abstract class GenerateProviderManifest extends DefaultTask {
+
+    /**
+     * The provider name.
+     */
+    @Input
+    public abstract Property<String> getProviderName();
+
+    /**
+     * The provider version.
+     */
+    @Input
+    public abstract Property<String> getProviderVersion();
+
+    /**
+     * The protocol version for provider communication.
+     */
+    @Input
+    public abstract Property<Integer> getProtocolVersion();
+
+    /**
+     * Path of the provider executable, relative to the distribution root.
+     * Defaults to "bin/provider".
+     */
+    @Input
+    public abstract Property<String> getExecutable();
+
+    /**
+     * Command line the engine can execute directly instead of the launcher script, relative to the
+     * distribution root. Omitted from the manifest when empty.
+     */
+    @Input
+    public abstract ListProperty<String> getCommand();
+
+    /**
+     * Default number of CPUs of the provider's resource budget, if any.
+     */
+    @Input
+    @Optional
+    public abstract Property<Integer> getCpus();
+
+    /**
+     * Default memory of the provider's resource budget, if any.
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getMemory();
+
+    /**
+     * The generated manifest file.
+     */
+    @OutputFile
+    public abstract RegularFileProperty getManifestFile();
+
+    public GenerateProviderManifest() {
+        getExecutable().convention("bin/provider");
+    }
+
+    @TaskAction
+    public void generate() {
+        var manifest = ProviderJson.metadata(
+                getProviderName().get(), getProviderVersion().get(), getProtocolVersion().get());
+        manifest.put("executable", getExecutable().get());
+        if (!getCommand().get().isEmpty()) {
+            manifest.put("command", getCommand().get());
+        }
+        if (getCpus().isPresent() || getMemory().isPresent()) {
+            var resources = new LinkedHashMap<String, Object>();
+            if (getCpus().isPresent()) {
+                resources.put("cpus", getCpus().get());
+            }
+            if (getMemory().isPresent()) {
+                resources.put("memory", getMemory().get());
+            }
+            manifest.put("resources", resources);
+        }
+
+        try {
+            var manifestFile = getManifestFile().get().getAsFile().toPath();
+            Files.createDirectories(manifestFile.getParent());
+            Files.writeString(manifestFile, ProviderJson.write(manifest));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write provider.json", e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Generates the template of the Unix start scripts, i.e. Gradle's template with the resource
+ * budget of {@link GenerateLauncherScript} and the lookup of a {@link StartupArchive} added.
+ * <p>
+ * The start scripts are rendered from the template by {@code CreateStartScripts}, so the default
+ * budget is baked into the template rather than the generated scripts.
+ */
+@CacheableTask
+public abstract class GenerateStartScriptTemplate extends DefaultTask {
+
+    /**
+     * Resource holding the template, relative to this class.
+     */
+    static final String TEMPLATE_RESOURCE = "unixStartScript.txt";
+
+    private static final String BUDGET_PLACEHOLDER = "@budgetScript@";
+
+    private static final String STARTUP_ARCHIVE_PLACEHOLDER = "@startupArchiveScript@";
+
+    /**
+     * Number of CPUs the provider may use unless {@code KITE_PROVIDER_CPUS} is set.
+     */
+    @Input
+    @Optional
+    public abstract Property<Integer> getDefaultCpus();
+
+    /**
+     * Memory the provider may use unless {@code KITE_PROVIDER_MEMORY} is set, e.g. "512m".
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getDefaultMemory();
+
+    /**
+     * The generated template.
+     */
+    @OutputFile
+    public abstract RegularFileProperty getTemplateFile();
+
+    @TaskAction
+    public void generate() {
+        var budgetScript = GenerateLauncherScript.budgetScript(getDefaultCpus().getOrNull(), getDefaultMemory().getOrNull());
+        try {
+            var templateFile = getTemplateFile().get().getAsFile().toPath();
+            Files.createDirectories(templateFile.getParent());
+            Files.writeString(templateFile, template(budgetScript));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to generate the start script template", e);
+        }
+    }
+
+    /**
+     * The template with the given budget script.
+     */
+    static String template(String budgetScript) throws IOException {
+        String template;
+        try (var in = GenerateStartScriptTemplate.class.getResourceAsStream(TEMPLATE_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("Missing resource " + TEMPLATE_RESOURCE);
+            }
+            template = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        return template
+                .replace(STARTUP_ARCHIVE_PLACEHOLDER, escape(startupArchiveScript().stripTrailing()))
+                .replace(BUDGET_PLACEHOLDER, escape(budgetScript.stripTrailing()));
+    }
+
+    /**
+     * Shell code adding the startup archive found in {@code lib/} to {@code DEFAULT_JVM_OPTS}. The
+     * template is shared by distributions with and without an archive, so it is looked up when
+     * the script runs.
+     */
+    static String startupArchiveScript() {
+        var script = new StringBuilder();
+        var keyword = "if";
+        for (StartupArchive archive : StartupArchive.values()) {
+            var path = "$APP_HOME/lib/" + archive.fileName();
+            // Keep JVM warnings (e.g. an archive built by another JDK) off stdout, which carries the handshake
+            script.append("""
+                    %s [ -f "%s" ] ; then
+                        DEFAULT_JVM_OPTS="\\"%s\\" -Xlog:disable -Xlog:all=warning:stderr $DEFAULT_JVM_OPTS"
+                    """.formatted(keyword, path, archive.jvmOption(path)));
+            keyword = "elif";
+        }
+        return script.append("fi\n").toString();
+    }
+
+    /**
+     * Escape shell code for the Groovy template engine, which would otherwise expand {@code $}
+     * references and drop backslashes.
+     */
+    static String escape(String shellCode) {
+        return shellCode.replace("\\", "\\\\").replace("$", "\\$");
+    }
+}
@@ -0,0 +1,117 @@
+package cloud.kitelang.gradle;
+
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * How {@code installDist} places the dependency JARs from the Gradle cache into {@code lib/}.
+ */
+enum InstallMode {
+
+    /**
+     * Byte copies, made by the {@code installDist} task itself.
+     */
+    COPY,
+
+    /**
+     * Hard links to the Gradle cache, or copies when the cache is on another file system.
+     */
+    HARDLINK,
+
+    /**
+     * Copy-on-write clones ({@code cp --reflink}) on file systems supporting them, like Btrfs and
+     * XFS, or copies elsewhere.
+     */
+    REFLINK;
+
+    /**
+     * Parse the value of {@code kiteProvider.installMode}, ignoring case.
+     */
+    static InstallMode parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            var supported = Arrays.stream(values())
+                    .map(mode -> "'" + mode.name().toLowerCase(Locale.ROOT) + "'")
+                    .collect(Collectors.joining(", "));
+            throw new IllegalArgumentException(
+                    "Unsupported kiteProvider.installMode '" + value + "'. Supported values: " + supported, e);
+        }
+    }
+
+    /**
+     * Place a JAR at the target path, unless the target already is the same file or a copy with
+     * the same size and modification time.
+     *
+     * @return whether the target was (re)placed
+     */
+    boolean install(Path source, Path target) throws IOException {
+        if (Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+            if (Files.isSameFile(source, target)
+                    || (Files.size(source) == Files.size(target)
+                    // Copies keep the modification time at a coarser precision than the source's
+                    && Files.getLastModifiedTime(source).toMillis() == Files.getLastModifiedTime(target).toMillis())) {
+                return false;
+            }
+            Files.delete(target);
+        }
+        switch (this) {
+            case HARDLINK -> {
+                try {
+                    Files.createLink(target, source);
+                } catch (FileSystemException | UnsupportedOperationException e) {
+                    copy(source, target);
+                }
+            }
+            case REFLINK -> {
+                if (!reflink(source, target)) {
+                    copy(source, target);
+                }
+            }
+            case COPY -> copy(source, target);
+        }
+        return true;
+    }
+
+    private static void copy(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        // Keep the modification time, so the next install recognizes the copy as unchanged
+        Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
+    }
+
+    /**
+     * Clone a file with {@code cp --reflink=always}, which fails instead of copying where the file
+     * system can't share the blocks.
+     *
+     * @return whether the clone was created
+     */
+    private static boolean reflink(Path source, Path target) throws IOException {
+        if (!System.getProperty("os.name").startsWith("Linux")) {
+            return false;
+        }
+        var process = new ProcessBuilder("cp", "--reflink=always", "--preserve=timestamps",
+                source.toString(), target.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            if (!process.waitFor(1, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                return false;
+            }
+            return process.exitValue() == 0;
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while cloning " + source, e);
+        }
+    }
+}
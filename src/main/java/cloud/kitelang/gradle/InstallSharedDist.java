@@ -0,0 +1,150 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.provider.SetProperty;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.UntrackedTask;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Installs a copy of a provider distribution whose dependency JARs live in a content-addressed
+ * store shared by all providers on the host, such as {@code ~/.kite/lib/<sha256>.jar}.
+ * <p>
+ * Dependency JARs are copied into the store under their SHA-256 unless an identical one is already
+ * there, and hard-linked into {@code lib/}, or symlinked when the store is on another file system.
+ * Providers sharing gRPC, Netty or the SDK then map the same files, which the OS caches once. Store
+ * entries are read-only and have the fixed modification time of {@link StartupArchive#JAR_TIMESTAMP},
+ * so startup archives trained against them stay valid. All other files are copied.
+ * <p>
+ * The distribution is recreated on every run rather than updated in place, so no copy ever writes
+ * through a link into the store.
+ */
+@UntrackedTask(because = "The library store lives outside the build and is shared between builds")
+public abstract class InstallSharedDist extends DefaultTask {
+
+    /**
+     * The installed distribution to share the libraries of.
+     */
+    @Internal
+    public abstract DirectoryProperty getDistribution();
+
+    /**
+     * File names of the JARs in {@code lib/} that are shared through the store. Other JARs, like the
+     * provider JAR itself, which changes with every build, are copied.
+     */
+    @Internal
+    public abstract SetProperty<String> getSharedJars();
+
+    /**
+     * Directory of the content-addressed library store.
+     */
+    @Internal
+    public abstract DirectoryProperty getStore();
+
+    /**
+     * Directory of the installed distribution linking into the store.
+     */
+    @Internal
+    public abstract DirectoryProperty getDestination();
+
+    @Inject
+    protected abstract FileSystemOperations getFileSystemOperations();
+
+    @TaskAction
+    public void install() {
+        var source = getDistribution().get().getAsFile().toPath();
+        var destination = getDestination().get().getAsFile().toPath();
+        var store = getStore().get().getAsFile().toPath();
+        var sharedJars = getSharedJars().get();
+        getFileSystemOperations().delete(spec -> spec.delete(destination.toFile()));
+        var shared = 0;
+        var stored = 0;
+        try (Stream<Path> files = Files.walk(source)) {
+            Files.createDirectories(store);
+            for (var file : (Iterable<Path>) files::iterator) {
+                var target = destination.resolve(source.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(target);
+                } else if (file.getParent().equals(source.resolve("lib")) && sharedJars.contains(file.getFileName().toString())) {
+                    var entry = store.resolve(sha256(file) + ".jar");
+                    if (!Files.exists(entry)) {
+                        addToStore(file, entry);
+                        stored++;
+                    }
+                    link(target, entry);
+                    shared++;
+                } else {
+                    Files.copy(file, target, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to install " + destination + " with libraries shared through " + store, e);
+        }
+        getLogger().info("Linked {} JARs into {}, {} of them newly stored in {}", shared, destination, stored, store);
+    }
+
+    /**
+     * Copy a JAR into the store under a temporary name and move it into place atomically, so
+     * concurrent installs never see a partial entry.
+     */
+    private static void addToStore(Path jar, Path entry) throws IOException {
+        var temporary = entry.resolveSibling(entry.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.copy(jar, temporary);
+            Files.setLastModifiedTime(temporary, StartupArchive.JAR_TIMESTAMP);
+            temporary.toFile().setReadOnly();
+            try {
+                Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, entry);
+            }
+        } catch (FileAlreadyExistsException e) {
+            // Stored by a concurrent install in the meantime
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Hard-link a store entry, falling back to a symbolic link across file systems.
+     */
+    private static void link(Path link, Path entry) throws IOException {
+        try {
+            Files.createLink(link, entry);
+        } catch (FileSystemException | UnsupportedOperationException e) {
+            Files.createSymbolicLink(link, entry);
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try (var in = Files.newInputStream(file)) {
+            var digest = MessageDigest.getInstance("SHA-256");
+            var buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
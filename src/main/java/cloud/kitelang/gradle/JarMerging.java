@@ -0,0 +1,87 @@
+package cloud.kitelang.gradle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+/**
+ * Rules shared by the tasks that merge several JARs into one.
+ * <p>
+ * The first occurrence of an entry wins, except for {@code META-INF/services} files whose
+ * lines are merged, matching what {@code shadowJar} does with {@code mergeServiceFiles()}.
+ * Manifests, signature files and module descriptors of the merged JARs are dropped.
+ */
+final class JarMerging {
+
+    static final String MANIFEST = "META-INF/MANIFEST.MF";
+    private static final String SERVICES_PREFIX = "META-INF/services/";
+
+    private final Map<String, Set<String>> services = new LinkedHashMap<>();
+
+    /**
+     * Whether an entry of a merged JAR must not be copied into the result.
+     */
+    static boolean isExcluded(String entryName) {
+        if (entryName.equals(MANIFEST) || entryName.equals("META-INF/INDEX.LIST")
+                || entryName.equals("module-info.class") || entryName.endsWith("/module-info.class")) {
+            return true;
+        }
+        if (entryName.startsWith("META-INF/") && entryName.indexOf('/', "META-INF/".length()) < 0) {
+            var upper = entryName.toUpperCase(Locale.ROOT);
+            return upper.endsWith(".SF") || upper.endsWith(".DSA") || upper.endsWith(".RSA") || upper.endsWith(".EC");
+        }
+        return false;
+    }
+
+    /**
+     * Whether an entry is a service provider configuration file whose contents are merged.
+     */
+    static boolean isServiceFile(String entryName) {
+        return entryName.startsWith(SERVICES_PREFIX) && entryName.length() > SERVICES_PREFIX.length()
+                && !entryName.endsWith("/");
+    }
+
+    /**
+     * Add the contents of a service file, keeping the first occurrence of each provider line.
+     */
+    void addServiceFile(String entryName, byte[] content) {
+        var lines = services.computeIfAbsent(entryName, k -> new LinkedHashSet<>());
+        for (String line : new String(content, StandardCharsets.UTF_8).split("\\R")) {
+            var trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                lines.add(trimmed);
+            }
+        }
+    }
+
+    /**
+     * The merged service files, keyed by entry name.
+     */
+    Map<String, byte[]> mergedServiceFiles() {
+        var merged = new LinkedHashMap<String, byte[]>();
+        services.forEach((entryName, lines) ->
+                merged.put(entryName, (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8)));
+        return merged;
+    }
+
+    /**
+     * Render a JAR manifest with the given main attributes.
+     */
+    static byte[] manifest(Map<String, String> attributes) throws IOException {
+        var manifest = new Manifest();
+        var mainAttributes = manifest.getMainAttributes();
+        mainAttributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.forEach(mainAttributes::putValue);
+
+        var out = new ByteArrayOutputStream();
+        manifest.write(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,47 @@
+package cloud.kitelang.gradle;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * How the provider JAR shipped by {@code installMinDist} is assembled.
+ */
+enum JarPackaging {
+
+    /**
+     * A single fat JAR built by the Shadow plugin's {@code shadowJar} task.
+     */
+    SHADOW,
+
+    /**
+     * A fat JAR spliced from a cached, pre-merged dependency layer and the application classes.
+     */
+    LAYERED,
+
+    /**
+     * A fat JAR built by the plugin's own {@code kiteFatJar} task, without the Shadow plugin.
+     */
+    NATIVE,
+
+    /**
+     * The application classes only, with a {@code Class-Path} manifest attribute listing the
+     * unmodified dependency JARs shipped next to it.
+     */
+    THIN;
+
+    /**
+     * Parse the value of {@code kiteProvider.packaging}, ignoring case.
+     */
+    static JarPackaging parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            var supported = Arrays.stream(values())
+                    .map(packaging -> "'" + packaging.name().toLowerCase(Locale.ROOT) + "'")
+                    .collect(Collectors.joining(", "));
+            throw new IllegalArgumentException(
+                    "Unsupported kiteProvider.packaging '" + value + "'. Supported values: " + supported, e);
+        }
+    }
+}
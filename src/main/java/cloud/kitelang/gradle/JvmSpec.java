@@ -0,0 +1,107 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * JVM options of the provider launchers, used by both the {@code installDist} start script and
+ * the launchers of the minimized distributions.
+ * <p>
+ * Usage in build.gradle:
+ * <pre>
+ * kiteProvider {
+ *     jvm {
+ *         shortLived()
+ *         heap = '256m'
+ *         systemProperties.put('io.netty.leakDetection.level', 'disabled')
+ *     }
+ * }
+ * </pre>
+ */
+public abstract class JvmSpec {
+
+    /**
+     * Maximum heap size, either absolute like {@code "512m"} ({@code -Xmx}) or a share of the
+     * available memory like {@code "50%"} ({@code -XX:MaxRAMPercentage}).
+     */
+    public abstract Property<String> getHeap();
+
+    /**
+     * Garbage collector: {@code serial}, {@code parallel}, {@code g1}, {@code z} or {@code shenandoah}.
+     */
+    public abstract Property<String> getGc();
+
+    /**
+     * Number of CPUs the JVM sizes its thread pools for ({@code -XX:ActiveProcessorCount}).
+     */
+    public abstract Property<Integer> getActiveProcessorCount();
+
+    /**
+     * Additional JVM arguments, appended after the generated ones.
+     */
+    public abstract ListProperty<String> getExtraArgs();
+
+    /**
+     * System properties passed with {@code -D}.
+     */
+    public abstract MapProperty<String, String> getSystemProperties();
+
+    /**
+     * Tune for providers started for a single plan or apply and exiting soon after: the serial
+     * collector and the C1 compiler only, which start fastest and use the least memory.
+     */
+    public void shortLived() {
+        getGc().set("serial");
+        getExtraArgs().add("-XX:TieredStopAtLevel=1");
+    }
+
+    /**
+     * Tune for providers kept running across many requests: the G1 collector and up to half of
+     * the available memory as heap.
+     */
+    public void longLived() {
+        getGc().set("g1");
+        getHeap().set("50%");
+    }
+
+    /**
+     * Translate the heap setting into a JVM option.
+     */
+    static String heapOption(String heap) {
+        var value = heap.trim();
+        if (value.endsWith("%")) {
+            return "-XX:MaxRAMPercentage=" + Double.parseDouble(value.substring(0, value.length() - 1));
+        }
+        return "-Xmx" + value;
+    }
+
+    /**
+     * Translate the garbage collector name into a JVM option.
+     */
+    static String gcOption(String gc) {
+        return switch (gc.trim().toLowerCase(Locale.ROOT)) {
+            case "serial" -> "-XX:+UseSerialGC";
+            case "parallel" -> "-XX:+UseParallelGC";
+            case "g1" -> "-XX:+UseG1GC";
+            case "z", "zgc" -> "-XX:+UseZGC";
+            case "shenandoah" -> "-XX:+UseShenandoahGC";
+            default -> throw new IllegalArgumentException("Unsupported kiteProvider.jvm.gc '" + gc
+                    + "'. Supported values: 'serial', 'parallel', 'g1', 'z', 'shenandoah'");
+        };
+    }
+
+    /**
+     * Translate system properties into {@code -D} options.
+     */
+    static List<String> systemPropertyOptions(Map<String, String> properties) {
+        var options = new ArrayList<String>();
+        properties.forEach((key, value) -> options.add("-D" + key + "=" + value));
+        return options;
+    }
+}
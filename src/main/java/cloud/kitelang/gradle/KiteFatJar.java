@@ -0,0 +1,258 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipFile;
+
+/**
+ * Builds the provider fat JAR without the Shadow plugin.
+ * <p>
+ * Entries are streamed from the application classes and the runtime classpath straight into
+ * the output, deflated in parallel across a bounded window so memory stays proportional to the
+ * number of threads. Duplicate entries keep the first occurrence (application classes first);
+ * duplicates with identical content are dropped silently. {@code META-INF/services} files are
+ * merged. Relocation is not supported; use {@code shadowJar} for that.
+ */
+@CacheableTask
+public abstract class KiteFatJar extends DefaultTask {
+
+    /**
+     * Compiled application classes and resources. They take precedence over dependency entries.
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getApplicationClasses();
+
+    /**
+     * The runtime classpath to merge, in classpath order.
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getClasspath();
+
+    /**
+     * Value of the {@code Main-Class} manifest attribute.
+     */
+    @Input
+    public abstract Property<String> getMainClass();
+
+    /**
+     * Value of the {@code Class-Path} manifest attribute, if any.
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getManifestClassPath();
+
+    /**
+     * Deflate compression level, 0-9. Defaults to the zlib default.
+     */
+    @Input
+    public abstract Property<Integer> getCompressionLevel();
+
+    /**
+     * Number of threads compressing entries. Defaults to the number of available processors.
+     */
+    @Internal
+    public abstract Property<Integer> getThreads();
+
+    /**
+     * The assembled provider JAR.
+     */
+    @OutputFile
+    public abstract RegularFileProperty getArchiveFile();
+
+    public KiteFatJar() {
+        getCompressionLevel().convention(Deflater.DEFAULT_COMPRESSION);
+        getThreads().convention(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TaskAction
+    public void build() {
+        var archive = getArchiveFile().get().getAsFile().toPath();
+        var threads = Math.max(1, getThreads().get());
+        var executor = Executors.newFixedThreadPool(threads);
+        var zipFiles = new ArrayList<ZipFile>();
+
+        try (var writer = new ZipArchiveWriter(Files.newOutputStream(archive))) {
+            var level = getCompressionLevel().get();
+            var attributes = new LinkedHashMap<String, String>();
+            attributes.put("Main-Class", getMainClass().get());
+            if (getManifestClassPath().isPresent()) {
+                attributes.put("Class-Path", getManifestClassPath().get());
+            }
+            writer.write(ZipArchiveWriter.compress(JarMerging.MANIFEST, JarMerging.manifest(attributes), level));
+
+            var pipeline = new Pipeline(writer, executor, threads * 4, level);
+
+            for (File root : getApplicationClasses()) {
+                addRoot(root, pipeline, zipFiles);
+            }
+            for (File root : getClasspath()) {
+                addRoot(root, pipeline, zipFiles);
+            }
+            pipeline.finish();
+
+            if (pipeline.conflicts > 0) {
+                getLogger().info("{}: kept the first of {} conflicting duplicate entries", getPath(), pipeline.conflicts);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to build " + archive, e);
+        } finally {
+            executor.shutdownNow();
+            for (ZipFile zipFile : zipFiles) {
+                try {
+                    zipFile.close();
+                } catch (IOException ignored) {
+                    // Nothing left to read from it
+                }
+            }
+        }
+    }
+
+    private static void addRoot(File root, Pipeline pipeline, List<ZipFile> zipFiles) throws IOException {
+        if (root.isDirectory()) {
+            var dir = root.toPath();
+            try (var stream = Files.walk(dir)) {
+                for (Path path : stream.sorted().toList()) {
+                    if (path.equals(dir)) continue;
+
+                    var entryName = dir.relativize(path).toString().replace(File.separatorChar, '/');
+                    if (Files.isDirectory(path)) {
+                        pipeline.add(entryName + "/", -1, () -> new byte[0]);
+                    } else {
+                        pipeline.add(entryName, -1, () -> Files.readAllBytes(path));
+                    }
+                }
+            }
+        } else if (root.isFile()) {
+            // Entries are read concurrently by the compression threads, which ZipFile supports
+            var zip = new ZipFile(root);
+            zipFiles.add(zip);
+            for (var entries = zip.entries(); entries.hasMoreElements(); ) {
+                var entry = entries.nextElement();
+                pipeline.add(entry.getName(), entry.getCrc(), () -> {
+                    try (var in = zip.getInputStream(entry)) {
+                        return in.readAllBytes();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Deduplicates entries, compresses them on the executor and writes them in order.
+     */
+    private static final class Pipeline {
+
+        private final ZipArchiveWriter writer;
+        private final ExecutorService executor;
+        private final int window;
+        private final int level;
+        private final ArrayDeque<Future<ZipArchiveWriter.CompressedEntry>> pending = new ArrayDeque<>();
+        private final Map<String, Long> seen = new HashMap<>();
+        // Contents of kept entries read from directories, whose CRC is only computed once a duplicate shows up
+        private final Map<String, Callable<byte[]>> unhashed = new HashMap<>();
+        private final JarMerging merging = new JarMerging();
+        private int conflicts;
+
+        Pipeline(ZipArchiveWriter writer, ExecutorService executor, int window, int level) {
+            this.writer = writer;
+            this.executor = executor;
+            this.window = window;
+            this.level = level;
+        }
+
+        /**
+         * @param crc CRC-32 of the entry if known up front, or -1 to compute it from the content
+         *            when a duplicate shows up
+         */
+        void add(String entryName, long crc, Callable<byte[]> content) throws IOException {
+            if (JarMerging.isExcluded(entryName)) return;
+
+            if (JarMerging.isServiceFile(entryName)) {
+                merging.addServiceFile(entryName, call(content));
+                return;
+            }
+
+            var previous = seen.putIfAbsent(entryName, crc);
+            if (previous != null) {
+                if (!entryName.endsWith("/") && crc(entryName, previous) != crc(content, crc)) {
+                    conflicts++;
+                }
+                return;
+            }
+            if (crc < 0) {
+                unhashed.put(entryName, content);
+            }
+
+            pending.add(executor.submit(() -> ZipArchiveWriter.compress(entryName, content.call(), level)));
+            if (pending.size() >= window) {
+                writeNext();
+            }
+        }
+
+        void finish() throws IOException {
+            while (!pending.isEmpty()) {
+                writeNext();
+            }
+            for (var service : merging.mergedServiceFiles().entrySet()) {
+                writer.write(ZipArchiveWriter.compress(service.getKey(), service.getValue(), level));
+            }
+        }
+
+        private long crc(String keptEntryName, long keptCrc) throws IOException {
+            return keptCrc >= 0 ? keptCrc : crc(unhashed.get(keptEntryName), keptCrc);
+        }
+
+        private static long crc(Callable<byte[]> content, long crc) throws IOException {
+            if (crc >= 0) return crc;
+
+            var checksum = new CRC32();
+            checksum.update(call(content));
+            return checksum.getValue();
+        }
+
+        private void writeNext() throws IOException {
+            writer.write(call(pending.poll()::get));
+        }
+
+        private static <T> T call(Callable<T> callable) throws IOException {
+            try {
+                return callable.call();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) throw io;
+                throw new IOException(e.getCause());
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
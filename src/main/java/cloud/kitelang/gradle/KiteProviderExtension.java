@@ -1,6 +1,9 @@
 package cloud.kitelang.gradle;
 
+import org.gradle.api.Action;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Nested;
 
 /**
  * Extension for configuring Kite provider builds.
@@ -38,4 +41,156 @@ public abstract class KiteProviderExtension {
      * Defaults to "0.1.0".
      */
     public abstract Property<String> getSdkVersion();
+
+    /**
+     * Maximum size in bytes of a source file considered when auto-detecting the main class
+     * before the first compilation. Larger files, typically generated code, are skipped.
+     * Defaults to 1 MiB.
+     */
+    public abstract Property<Long> getMaxScannedSourceSize();
+
+    /**
+     * Whether to package the version-bearing {@code META-INF/kite/provider.json} resource in a
+     * separate {@code <name>-provider-metadata.jar} instead of the main and shadow JARs.
+     * <p>
+     * The provider JARs then no longer change when only the version changes, and the main JAR's
+     * file name leaves out the version, so a version bump re-packages the tiny metadata JAR
+     * instead of re-running the {@code jar} task and the shadow JAR merge. The metadata
+     * JAR is shipped next to the provider JAR in {@code lib/} and referenced through the
+     * {@code Class-Path} manifest attribute. Defaults to false.
+     */
+    public abstract Property<Boolean> getSeparateMetadataJar();
+
+    /**
+     * Whether the {@code provider.json} of the {@code installDist} distribution carries a
+     * {@code command} the engine can execute directly: the Java executable, the JVM arguments of
+     * the start script, the options of the default budget, the {@code @lib/provider.args}
+     * classpath argfile and the main class. This skips the start script, which forks subshells
+     * and resolves {@code JAVA_HOME} on every launch. Defaults to false.
+     * <p>
+     * Unlike the start script, the command ignores {@code JAVA_HOME}: it starts with a bare
+     * {@code java} looked up on the engine's PATH, because {@code provider.json} is executed
+     * without a shell to expand the variable.
+     */
+    public abstract Property<Boolean> getDirectExec();
+
+    /**
+     * Directory of the content-addressed store the dependency JARs of {@code installSharedDist}
+     * and {@code installSharedMinDist} are linked from. Defaults to {@code ~/.kite/lib}.
+     */
+    public abstract DirectoryProperty getLibraryStore();
+
+    /**
+     * How {@code installDist} places the dependency JARs into {@code lib/}: {@code "copy"} copies
+     * them, {@code "hardlink"} hard-links them from the Gradle cache and {@code "reflink"} clones
+     * them copy-on-write on Linux file systems supporting it, like Btrfs and XFS. The linking modes
+     * only replace JARs that changed and fall back to copying across file systems. Hard-linked JARs
+     * share their content with the Gradle cache, so they must not be modified in place.
+     * Defaults to "copy".
+     */
+    public abstract Property<String> getInstallMode();
+
+    /**
+     * How the provider JAR of the minimized distribution is assembled:
+     * <ul>
+     *   <li>{@code "shadow"} - fat JAR built by the Shadow plugin (default)</li>
+     *   <li>{@code "layered"} - fat JAR spliced from a cached dependency layer and the application
+     *   classes, so changing provider code doesn't re-merge the dependencies</li>
+     *   <li>{@code "native"} - fat JAR streamed by the plugin's {@code kiteFatJar} task with parallel
+     *   compression; the default when the Shadow plugin is disabled with
+     *   {@code kite.provider.applyShadow=false}</li>
+     * </ul>
+     */
+    public abstract Property<String> getPackaging();
+
+    /**
+     * Startup optimizations applied to the provider distributions.
+     */
+    @Nested
+    public abstract StartupSpec getStartup();
+
+    /**
+     * Configure startup optimizations.
+     */
+    public void startup(Action<? super StartupSpec> action) {
+        action.execute(getStartup());
+    }
+
+    /**
+     * The custom Java runtime bundled by {@code installRuntimeDist}.
+     */
+    @Nested
+    public abstract RuntimeImageSpec getRuntime();
+
+    /**
+     * Configure the custom Java runtime.
+     */
+    public void runtime(Action<? super RuntimeImageSpec> action) {
+        action.execute(getRuntime());
+    }
+
+    /**
+     * The GraalVM native executable built by {@code installNativeDist}.
+     */
+    @Nested
+    public abstract NativeImageSpec getNativeImage();
+
+    /**
+     * Configure the GraalVM native executable.
+     */
+    public void nativeImage(Action<? super NativeImageSpec> action) {
+        action.execute(getNativeImage());
+    }
+
+    /**
+     * JVM options of the provider launchers.
+     */
+    @Nested
+    public abstract JvmSpec getJvm();
+
+    /**
+     * Configure the JVM options of the provider launchers.
+     */
+    public void jvm(Action<? super JvmSpec> action) {
+        action.execute(getJvm());
+    }
+
+    /**
+     * Default resource budget of the provider process.
+     */
+    @Nested
+    public abstract ResourceBudgetSpec getBudget();
+
+    /**
+     * Configure the default resource budget of the provider process.
+     */
+    public void budget(Action<? super ResourceBudgetSpec> action) {
+        action.execute(getBudget());
+    }
+
+    /**
+     * Benchmarks of the built provider distributions.
+     */
+    @Nested
+    public abstract BenchmarkSpec getBenchmark();
+
+    /**
+     * Configure the benchmarks of the built provider distributions.
+     */
+    public void benchmark(Action<? super BenchmarkSpec> action) {
+        action.execute(getBenchmark());
+    }
+
+    /**
+     * Load test of the built provider.
+     */
+    @Nested
+    public abstract LoadTestSpec getLoadTest();
+
+    /**
+     * Configure the load test of the built provider.
+     */
+    public void loadTest(Action<? super LoadTestSpec> action) {
+        action.execute(getLoadTest());
+    }
 }
@@ -2,20 +2,53 @@ package cloud.kitelang.gradle;
 
 import com.github.jengelman.gradle.plugins.shadow.ShadowPlugin;
 import com.github.jengelman.gradle.plugins.shadow.tasks.ShadowJar;
+import org.gradle.api.Action;
+import org.gradle.api.GradleException;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.distribution.DistributionContainer;
+import org.gradle.api.distribution.plugins.DistributionPlugin;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.RegularFile;
 import org.gradle.api.plugins.ApplicationPlugin;
 import org.gradle.api.plugins.JavaApplication;
 import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.plugins.JavaPluginExtension;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.Copy;
+import org.gradle.api.tasks.JavaExec;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.SourceSetContainer;
 import org.gradle.api.tasks.Sync;
+import org.gradle.api.tasks.bundling.Jar;
+import org.gradle.api.tasks.testing.Test;
+import org.gradle.jvm.application.scripts.TemplateBasedScriptGenerator;
+import org.gradle.jvm.application.tasks.CreateStartScripts;
+import org.gradle.jvm.toolchain.JavaLanguageVersion;
+import org.gradle.jvm.toolchain.JavaLauncher;
+import org.gradle.jvm.toolchain.JavaToolchainService;
+import org.gradle.process.CommandLineArgumentProvider;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * Gradle plugin that simplifies building Kite infrastructure providers.
@@ -43,33 +76,90 @@ import java.nio.file.Path;
  */
 public class KiteProviderPlugin implements Plugin<Project> {
 
+    /**
+     * Gradle property that, when set to false, skips applying the Shadow plugin.
+     */
+    static final String APPLY_SHADOW_PROPERTY = "kite.provider.applyShadow";
+
+    /**
+     * JVM arguments the provider SDK needs, passed by every launcher before the {@code jvm} options.
+     */
+    static final List<String> LAUNCHER_JVM_ARGS = List.of(
+            "--add-opens=java.base/java.nio=ALL-UNNAMED",
+            "--add-opens=java.base/sun.nio.ch=ALL-UNNAMED");
+
+    /**
+     * Name of the CRaC checkpoint image directory in lib/.
+     */
+    static final String CRAC_IMAGE = "crac";
+
+    /**
+     * Name of the classpath argfile in lib/.
+     */
+    static final String CLASSPATH_ARGFILE = "provider.args";
+
     @Override
     public void apply(Project project) {
         // Apply required plugins
         project.getPluginManager().apply(JavaPlugin.class);
         project.getPluginManager().apply(ApplicationPlugin.class);
-        project.getPluginManager().apply(ShadowPlugin.class);
+
+        // Shadow is only needed for relocation; skipping it saves its apply and execution cost
+        var applyShadow = project.getProviders().gradleProperty(APPLY_SHADOW_PROPERTY)
+                .map(Boolean::parseBoolean)
+                .getOrElse(true);
+        if (applyShadow) {
+            project.getPluginManager().apply(ShadowPlugin.class);
+        }
 
         // Create extension
         var extension = project.getExtensions().create("kiteProvider", KiteProviderExtension.class);
 
         // Set defaults
+        extension.getName().convention(project.getName());
         extension.getProtocolVersion().convention(1);
         extension.getSdkVersion().convention("0.1.0");
-
-        // Configure after evaluation (when extension values are set)
-        project.afterEvaluate(p -> configure(p, extension));
+        extension.getMaxScannedSourceSize().convention(1024L * 1024);
+        extension.getSeparateMetadataJar().convention(false);
+        extension.getDirectExec().convention(false);
+        extension.getLibraryStore().convention(project.getLayout().dir(
+                project.getProviders().systemProperty("user.home").map(home -> new File(home, ".kite/lib"))));
+        extension.getInstallMode().convention("copy");
+        extension.getPackaging().convention(applyShadow ? "shadow" : "native");
+        extension.getStartup().getCds().convention(false);
+        extension.getStartup().getAotCache().convention(false);
+        extension.getRuntime().getModules().convention(List.of("jdk.crypto.ec"));
+        extension.getNativeImage().getCollectMetadata().convention(true);
+        extension.getBenchmark().getRuns().convention(10);
+        extension.getBenchmark().getTolerancePercent().convention(10);
+        extension.getBenchmark().getJmhVersion().convention("1.37");
+        extension.getLoadTest().getConcurrency().convention(8);
+        extension.getLoadTest().getWarmup().convention(Duration.ofSeconds(5));
+        extension.getLoadTest().getDuration().convention(Duration.ofSeconds(30));
+        extension.getLoadTest().getMix().convention(Map.of("create", 1, "read", 5, "diff", 4));
+        extension.getBenchmark().getStartupBaseline().convention(project.getLayout().getProjectDirectory().file("kite/startup-baseline.json"));
+        extension.getStartup().getReadyPattern().convention(ProviderProcess.DEFAULT_READY_PATTERN);
+        extension.getStartup().getTrainingTimeout().convention(Duration.ofSeconds(60));
+
+        // Everything below is wired lazily, so extension values set later in the build script are honored
+        configure(project, extension, applyShadow);
     }
 
-    private void configure(Project project, KiteProviderExtension extension) {
-        var name = extension.getName().getOrElse(project.getName());
-        var version = project.getVersion().toString();
-        var protocolVersion = extension.getProtocolVersion().get();
-        var sdkVersion = extension.getSdkVersion().get();
+    private void configure(Project project, KiteProviderExtension extension, boolean shadowApplied) {
+        var name = extension.getName();
+        var version = project.provider(() -> project.getVersion().toString());
+        var protocolVersion = extension.getProtocolVersion();
 
-        // Create a provider that resolves the main class either from config or from generated manifest
+        // Resolve the main class either from config or by scanning the compiled classes / sources
+        var sourceSets = project.getExtensions().getByType(SourceSetContainer.class);
+        var mainSourceSet = sourceSets.getByName("main");
         Provider<String> mainClassProvider = extension.getMainClass().orElse(
-                project.provider(() -> readMainClassFromManifest(project))
+                project.getProviders().of(MainClassValueSource.class, spec -> spec.parameters(parameters -> {
+                    parameters.getClassesDirs().from(mainSourceSet.getOutput().getClassesDirs());
+                    parameters.getSourceDirs().from(mainSourceSet.getJava().getSourceDirectories());
+                    parameters.getIndexDir().set(project.getLayout().getBuildDirectory().dir("kite/main-class-index"));
+                    parameters.getMaxScannedSourceSize().set(extension.getMaxScannedSourceSize());
+                }))
         );
 
         // Configure application plugin with lazy main class resolution
@@ -77,199 +167,831 @@ public class KiteProviderPlugin implements Plugin<Project> {
         javaApplication.getMainClass().set(mainClassProvider);
 
         // Add SDK dependency
-        project.getDependencies().add("implementation", "cloud.kitelang:kite-provider-sdk:" + sdkVersion);
-        project.getDependencies().add("annotationProcessor", "cloud.kitelang:kite-provider-sdk:" + sdkVersion);
+        var sdkDependency = extension.getSdkVersion().map(sdkVersion -> "cloud.kitelang:kite-provider-sdk:" + sdkVersion);
+        project.getDependencies().addProvider("implementation", sdkDependency);
+        project.getDependencies().addProvider("annotationProcessor", sdkDependency);
 
         // Generate provider.json as a resource (same format as distribution manifest)
-        var sourceSets = project.getExtensions().getByType(SourceSetContainer.class);
-        var mainSourceSet = sourceSets.getByName("main");
-        var generatedResourcesDir = project.getLayout().getBuildDirectory().dir("generated/resources/kite");
-
-        // Register task to generate provider.json resource
-        var generateProviderInfo = project.getTasks().register("generateProviderInfo", task -> {
-            task.getOutputs().dir(generatedResourcesDir);
-
-            task.doLast(t -> {
-                var outputDir = generatedResourcesDir.get().getAsFile();
-                var metaInfDir = new File(outputDir, "META-INF/kite");
-                metaInfDir.mkdirs();
-
-                var providerJson = new File(metaInfDir, "provider.json");
-                var content = String.format("""
-                    {
-                        "name": "%s",
-                        "version": "%s",
-                        "protocolVersion": %d
-                    }
-                    """, name, version, protocolVersion);
-
-                try {
-                    Files.writeString(providerJson.toPath(), content);
-                } catch (IOException e) {
-                    throw new RuntimeException("Failed to write provider.json", e);
-                }
-            });
+        var generateProviderInfo = project.getTasks().register("generateProviderInfo", GenerateProviderInfo.class, task -> {
+            task.setDescription("Generates provider.json as a JAR resource.");
+            task.getProviderName().set(name);
+            task.getProviderVersion().set(version);
+            task.getProtocolVersion().set(protocolVersion);
+            task.getOutputDirectory().set(project.getLayout().getBuildDirectory().dir("generated/resources/kite"));
         });
 
-        // Add generated resources to source set and wire up task dependency
-        mainSourceSet.getResources().srcDir(generatedResourcesDir);
-        project.getTasks().named("processResources").configure(task -> {
-            task.dependsOn(generateProviderInfo);
+        // Add generated resources to source set (carries the task dependency), unless they are
+        // packaged separately so that version changes don't invalidate the provider JARs
+        var separateMetadataJar = extension.getSeparateMetadataJar();
+        mainSourceSet.getResources().srcDir((Callable<Object>) () -> separateMetadataJar.get()
+                ? List.of()
+                : generateProviderInfo.flatMap(GenerateProviderInfo::getOutputDirectory));
+
+        var providerMetadataJar = project.getTasks().register("providerMetadataJar", Jar.class, task -> {
+            task.setDescription("Packages provider.json into a separate metadata JAR.");
+            task.from(generateProviderInfo);
+            task.getArchiveFileName().set(name.map(n -> n + "-provider-metadata.jar"));
+            task.getDestinationDirectory().set(project.getLayout().getBuildDirectory().dir("kite/metadata"));
+            task.setPreserveFileTimestamps(false);
+            task.setReproducibleFileOrder(true);
+        });
+        Callable<Object> metadataJarIfSeparate = () -> separateMetadataJar.get() ? providerMetadataJar : List.of();
+        var metadataClassPath = separateMetadataJar.zip(name, (separate, n) -> separate ? n + "-provider-metadata.jar" : null);
+
+        // With a separate metadata JAR, the version is also kept out of the JAR's file name, so a
+        // version bump leaves the jar task up to date
+        project.getTasks().named("jar", Jar.class, task -> {
+            task.getArchiveVersion().set(separateMetadataJar.zip(version, (separate, v) ->
+                    separate || v.equals(Project.DEFAULT_VERSION) ? null : v));
+            task.manifest(manifest -> manifest.getAttributes().put("Class-Path", metadataClassPath));
         });
 
         // Configure shadow JAR
         project.getTasks().withType(ShadowJar.class).configureEach(shadowJar -> {
-            shadowJar.getArchiveBaseName().set(name + "-provider");
+            shadowJar.getArchiveBaseName().set(name.map(n -> n + "-provider"));
             shadowJar.getArchiveClassifier().set("");
             shadowJar.getArchiveVersion().set("");
             shadowJar.mergeServiceFiles();
 
             shadowJar.manifest(manifest -> {
-                manifest.getAttributes().put("Main-Class", mainClassProvider.get());
+                manifest.getAttributes().put("Main-Class", mainClassProvider);
+                manifest.getAttributes().put("Class-Path", metadataClassPath);
             });
         });
 
-        // Configure startScripts task
-        project.getTasks().named("startScripts", task -> {
-            task.setProperty("applicationName", "provider");
+        // Register the layered fat JAR pipeline: a cached dependency layer keyed on the runtime
+        // classpath, into which the application classes are spliced on each build
+        var providerDependencyLayer = project.getTasks().register("providerDependencyLayer", BuildDependencyLayer.class, task -> {
+            task.setDescription("Pre-merges the runtime dependencies into a cached JAR layer.");
+            task.getClasspath().from(project.getConfigurations().named("runtimeClasspath"));
+            task.getLayerFile().set(project.getLayout().getBuildDirectory().file("kite/layers/dependencies.jar"));
+        });
+
+        var layeredProviderJar = project.getTasks().register("layeredProviderJar", SpliceProviderJar.class, task -> {
+            task.setDescription("Assembles the provider fat JAR from the dependency layer and the application classes.");
+            task.getDependencyLayer().set(providerDependencyLayer.flatMap(BuildDependencyLayer::getLayerFile));
+            task.getApplicationClasses().from(mainSourceSet.getOutput());
+            task.getMainClass().set(mainClassProvider);
+            task.getManifestClassPath().set(metadataClassPath);
+            task.getArchiveFile().set(project.getLayout().getBuildDirectory().file(name.map(n -> "kite/layers/" + n + "-provider.jar")));
         });
 
-        // Register provider manifest generation task
-        var installDistTask = project.getTasks().named("installDist", Sync.class);
+        // Register the built-in streaming fat JAR task, which doesn't need the Shadow plugin
+        var kiteFatJar = project.getTasks().register("kiteFatJar", KiteFatJar.class, task -> {
+            task.setDescription("Assembles the provider fat JAR with parallel compression, without the Shadow plugin.");
+            task.getApplicationClasses().from(mainSourceSet.getOutput());
+            task.getClasspath().from(project.getConfigurations().named("runtimeClasspath"));
+            task.getMainClass().set(mainClassProvider);
+            task.getManifestClassPath().set(metadataClassPath);
+            task.getArchiveFile().set(project.getLayout().getBuildDirectory().file(name.map(n -> "kite/fatjar/" + n + "-provider.jar")));
+        });
 
-        project.getTasks().register("generateProviderManifest", task -> {
-            task.dependsOn(installDistTask);
+        // Register the thin JAR, which references the unmodified dependency JARs shipped next to it
+        var runtimeClasspath = project.getConfigurations().named(JavaPlugin.RUNTIME_CLASSPATH_CONFIGURATION_NAME);
+        Provider<String> thinClassPath = runtimeClasspath.flatMap(Configuration::getElements)
+                .zip(metadataClassPath.orElse(""), (dependencies, metadata) -> {
+                    var entries = new ArrayList<String>();
+                    if (!metadata.isEmpty()) {
+                        entries.add(metadata);
+                    }
+                    dependencies.forEach(dependency -> entries.add(dependency.getAsFile().getName()));
+                    return String.join(" ", entries);
+                });
+        var thinProviderJar = project.getTasks().register("thinProviderJar", Jar.class, task -> {
+            task.setDescription("Packages the application classes into a thin provider JAR whose Class-Path lists the dependency JARs.");
+            task.from(mainSourceSet.getOutput());
+            task.getArchiveFileName().set(name.map(n -> n + "-provider.jar"));
+            task.getDestinationDirectory().set(project.getLayout().getBuildDirectory().dir("kite/thin"));
+            task.setPreserveFileTimestamps(false);
+            task.setReproducibleFileOrder(true);
+            task.manifest(manifest -> {
+                manifest.getAttributes().put("Main-Class", mainClassProvider);
+                manifest.getAttributes().put("Class-Path", thinClassPath);
+            });
+        });
+
+        // Select the provider JAR shipped by the minimized distribution
+        var shadowJarTask = shadowApplied ? project.getTasks().named("shadowJar", ShadowJar.class) : null;
+        Provider<RegularFile> providerJar = extension.getPackaging().map(JarPackaging::parse).flatMap(packaging -> switch (packaging) {
+            case SHADOW -> {
+                if (shadowJarTask == null) {
+                    throw new GradleException("kiteProvider.packaging 'shadow' requires the Shadow plugin, which is disabled by "
+                            + APPLY_SHADOW_PROPERTY + "=false. Use packaging 'native', 'layered' or 'thin' instead.");
+                }
+                yield shadowJarTask.flatMap(ShadowJar::getArchiveFile);
+            }
+            case LAYERED -> layeredProviderJar.flatMap(SpliceProviderJar::getArchiveFile);
+            case NATIVE -> kiteFatJar.flatMap(KiteFatJar::getArchiveFile);
+            case THIN -> thinProviderJar.flatMap(Jar::getArchiveFile);
+        });
+        // JARs the provider JAR references through its Class-Path, shipped next to it in lib/
+        var thinPackaging = extension.getPackaging().map(packaging -> JarPackaging.parse(packaging) == JarPackaging.THIN);
+        Callable<Object> dependencyJarsIfThin = () -> thinPackaging.get() ? runtimeClasspath : List.of();
+        var providerClasspath = project.files(metadataJarIfSeparate, dependencyJarsIfThin);
+
+        // JVM options shared by all launchers
+        var jvm = extension.getJvm();
+        var jvmArgs = project.getObjects().listProperty(String.class);
+        jvmArgs.addAll(LAUNCHER_JVM_ARGS);
+        jvmArgs.addAll(jvm.getHeap().map(heap -> List.of(JvmSpec.heapOption(heap))).orElse(List.of()));
+        jvmArgs.addAll(jvm.getGc().map(gc -> List.of(JvmSpec.gcOption(gc))).orElse(List.of()));
+        jvmArgs.addAll(jvm.getActiveProcessorCount().map(count -> List.of("-XX:ActiveProcessorCount=" + count)).orElse(List.of()));
+        jvmArgs.addAll(jvm.getSystemProperties().map(JvmSpec::systemPropertyOptions));
+        jvmArgs.addAll(jvm.getExtraArgs());
+
+        // Start scripts keep the applicationDefaultJvmArgs, after the kiteProvider.jvm options
+        Provider<List<String>> applicationJvmArgs = project.provider(() -> {
+            var args = new ArrayList<String>();
+            javaApplication.getApplicationDefaultJvmArgs().forEach(args::add);
+            return args;
+        });
+        Provider<List<String>> startScriptJvmArgs = jvmArgs.zip(applicationJvmArgs, (kiteArgs, applicationArgs) -> {
+            var args = new ArrayList<String>(kiteArgs);
+            args.addAll(applicationArgs);
+            return args;
+        });
+        project.getTasks().withType(CreateStartScripts.class).configureEach(task -> {
+            task.setDefaultJvmOpts(new ProviderList(startScriptJvmArgs));
+        });
 
-            var installDir = installDistTask.get().getDestinationDir();
-            var manifestFile = new File(installDir, "provider.json");
+        // Every launcher and manifest carries the default resource budget
+        var budget = extension.getBudget();
+        project.getTasks().withType(GenerateLauncherScript.class).configureEach(task -> {
+            task.getDefaultCpus().set(budget.getCpus());
+            task.getDefaultMemory().set(budget.getMemory());
+        });
+        project.getTasks().withType(GenerateStartScriptTemplate.class).configureEach(task -> {
+            task.getDefaultCpus().set(budget.getCpus());
+            task.getDefaultMemory().set(budget.getMemory());
+        });
+        project.getTasks().withType(GenerateProviderManifest.class).configureEach(task -> {
+            task.getCpus().set(budget.getCpus());
+            task.getMemory().set(budget.getMemory());
+        });
+        project.getTasks().withType(CheckpointProvider.class).configureEach(task -> {
+            task.getCpus().set(budget.getCpus());
+            task.getMemory().set(budget.getMemory());
+        });
 
-            task.getOutputs().file(manifestFile);
+        // Configure startScripts task, rendering the Unix script from the budgeted template
+        var budgetCpus = budget.getCpus();
+        var budgetMemory = budget.getMemory();
+        var generateStartScriptTemplate = project.getTasks().register("generateStartScriptTemplate", GenerateStartScriptTemplate.class, task -> {
+            task.setDescription("Generates the template of the Unix start scripts with the default resource budget.");
+            task.getTemplateFile().set(project.getLayout().getBuildDirectory().file("kite/start-script/" + GenerateStartScriptTemplate.TEMPLATE_RESOURCE));
+        });
+        var startScriptTemplate = generateStartScriptTemplate.flatMap(GenerateStartScriptTemplate::getTemplateFile);
+        project.getTasks().withType(CreateStartScripts.class).configureEach(task -> {
+            // The script generator isn't an input of the task, so the template is declared separately
+            task.getInputs().file(startScriptTemplate)
+                    .withPropertyName("kiteStartScriptTemplate")
+                    .withPathSensitivity(PathSensitivity.NONE);
+            ((TemplateBasedScriptGenerator) task.getUnixStartScriptGenerator())
+                    .setTemplate(project.getResources().getText().fromFile(startScriptTemplate));
+        });
+        project.getTasks().named("startScripts", CreateStartScripts.class, task -> {
+            task.setApplicationName("provider");
+        });
 
-            task.doLast(t -> {
-                var content = String.format("""
-                    {
-                        "name": "%s",
-                        "version": "%s",
-                        "protocolVersion": %d,
-                        "executable": "bin/provider"
-                    }
-                    """, name, project.getVersion(), protocolVersion);
+        // Register the classpath argfile of the direct-exec command, in start script order
+        var jarTask = project.getTasks().named(JavaPlugin.JAR_TASK_NAME, Jar.class);
+        var distributionClasspath = project.files(jarTask, project.getConfigurations().named(JavaPlugin.RUNTIME_CLASSPATH_CONFIGURATION_NAME));
+        var distributionClasspathNames = distributionClasspath.getElements().map(entries -> entries.stream()
+                .map(entry -> entry.getAsFile().getName())
+                .toList());
+        var generateClasspathArgfile = project.getTasks().register("generateClasspathArgfile", GenerateClasspathArgfile.class, task -> {
+            task.setDescription("Generates the lib/provider.args classpath argfile of the installDist direct-exec command.");
+            task.getClasspath().set(distributionClasspathNames);
+            task.getArgfile().set(project.getLayout().getBuildDirectory().file("kite/argfile/" + CLASSPATH_ARGFILE));
+        });
+
+        // Register provider manifest generation task and ship the manifest at the distribution root
+        var directExec = extension.getDirectExec();
+        Callable<Object> argfileIfDirectExec = () -> directExec.get() ? generateClasspathArgfile : List.of();
+        Provider<List<String>> noCommand = project.provider(List::of);
+        // Without a shell to read KITE_PROVIDER_CPUS/MEMORY, the command carries the default budget
+        Provider<List<String>> budgetOptions = project.provider(() ->
+                GenerateLauncherScript.budgetOptions(budgetCpus.getOrNull(), budgetMemory.getOrNull()));
+        Provider<List<String>> directJvmArgs = startScriptJvmArgs.zip(budgetOptions, (args, budgetArgs) -> {
+            var all = new ArrayList<String>(args);
+            all.addAll(budgetArgs);
+            return all;
+        });
+        Provider<List<String>> directCommand = directJvmArgs.zip(mainClassProvider, (args, mainClass) -> {
+            var command = new ArrayList<String>();
+            // No shell expands JAVA_HOME here, so the command uses the java on the engine's PATH
+            command.add("java");
+            command.addAll(args);
+            command.add("@lib/" + CLASSPATH_ARGFILE);
+            command.add(mainClass);
+            return command;
+        });
+        var generateProviderManifest = project.getTasks().register("generateProviderManifest", GenerateProviderManifest.class, task -> {
+            task.setDescription("Generates the provider.json distribution manifest.");
+            task.getProviderName().set(name);
+            task.getProviderVersion().set(version);
+            task.getProtocolVersion().set(protocolVersion);
+            task.getCommand().set(directExec.flatMap(enabled -> enabled ? directCommand : noCommand));
+            task.getManifestFile().set(project.getLayout().getBuildDirectory().file("generated/kite/distribution/provider.json"));
+        });
+
+        project.getExtensions().getByType(DistributionContainer.class).named("main", distribution -> {
+            distribution.getContents().from(generateProviderManifest);
+            distribution.getContents().into("lib", spec -> spec.from(metadataJarIfSeparate, argfileIfDirectExec));
+        });
+
+        // The launcher-script distributions don't ship the classpath argfile, so their manifest has no command
+        var generateMinProviderManifest = project.getTasks().register("generateMinProviderManifest", GenerateProviderManifest.class, task -> {
+            task.setDescription("Generates the provider.json manifest of the minimized, runtime and CRaC distributions.");
+            task.getProviderName().set(name);
+            task.getProviderVersion().set(version);
+            task.getProtocolVersion().set(protocolVersion);
+            task.getManifestFile().set(project.getLayout().getBuildDirectory().file("generated/kite/min/provider.json"));
+        });
+
+        // Register startup archive generation with a training run of the provider JAR
+        var startup = extension.getStartup();
+        var javaExtension = project.getExtensions().getByType(JavaPluginExtension.class);
+        var javaLauncher = project.getExtensions().getByType(JavaToolchainService.class)
+                .launcherFor(javaExtension.getToolchain());
+        var aotCache = startup.getAotCache();
+        var generateProviderCds = project.getTasks().register("generateProviderCds", GenerateProviderCds.class, task -> {
+            task.setDescription("Generates an AppCDS archive for the provider JAR with a training run.");
+            configureTraining(task, providerJar, providerClasspath, javaLauncher, jvmArgs, startup);
+            task.getArchiveFile().set(project.getLayout().getBuildDirectory().file("kite/cds/" + StartupArchive.CDS.fileName()));
+        });
+        var generateProviderAotCache = project.getTasks().register("generateProviderAotCache", GenerateProviderAotCache.class, task -> {
+            task.setDescription("Generates a JDK AOT cache for the provider JAR with a training run.");
+            configureTraining(task, providerJar, providerClasspath, javaLauncher, jvmArgs, startup);
+            task.getArchiveFile().set(project.getLayout().getBuildDirectory().file("kite/aot/" + StartupArchive.AOT.fileName()));
+        });
+
+        // AOT caches need JDK 24+; older toolchains fall back to AppCDS
+        Provider<StartupArchive> startupArchive = aotCache
+                .zip(startup.getCds(), (aot, cds) -> aot ? StartupArchive.AOT : cds ? StartupArchive.CDS : null)
+                .zip(javaLauncher, (archive, launcher) ->
+                        archive == StartupArchive.AOT
+                                && launcher.getMetadata().getLanguageVersion().asInt() < StartupArchive.AOT_MIN_JAVA_VERSION
+                                ? StartupArchive.CDS : archive);
+        Provider<RegularFile> startupArchiveFile = startupArchive.flatMap(archive -> switch (archive) {
+            case CDS -> generateProviderCds.flatMap(GenerateProviderCds::getArchiveFile);
+            case AOT -> generateProviderAotCache.flatMap(GenerateProviderAotCache::getArchiveFile);
+        });
+        var startupArchiveIfEnabled = (Callable<Object>) () -> startupArchiveFile.isPresent() ? startupArchiveFile : List.of();
+
+        // installDist starts the application JAR with its dependencies on the classpath, so it needs an archive of its own
+        var generateDistCds = project.getTasks().register("generateDistCds", GenerateProviderCds.class, task -> {
+            task.setDescription("Generates an AppCDS archive for the installDist classpath with a training run.");
+            configureTraining(task, jarTask.flatMap(Jar::getArchiveFile), project.files(runtimeClasspath), javaLauncher, startScriptJvmArgs, startup);
+            task.getMainClass().set(mainClassProvider);
+            task.getArchiveFile().set(project.getLayout().getBuildDirectory().file("kite/dist-cds/" + StartupArchive.CDS.fileName()));
+        });
+        var generateDistAotCache = project.getTasks().register("generateDistAotCache", GenerateProviderAotCache.class, task -> {
+            task.setDescription("Generates a JDK AOT cache for the installDist classpath with a training run.");
+            configureTraining(task, jarTask.flatMap(Jar::getArchiveFile), project.files(runtimeClasspath), javaLauncher, startScriptJvmArgs, startup);
+            task.getMainClass().set(mainClassProvider);
+            task.getArchiveFile().set(project.getLayout().getBuildDirectory().file("kite/dist-aot/" + StartupArchive.AOT.fileName()));
+        });
+        Provider<RegularFile> distStartupArchiveFile = startupArchive.flatMap(archive -> switch (archive) {
+            case CDS -> generateDistCds.flatMap(GenerateProviderCds::getArchiveFile);
+            case AOT -> generateDistAotCache.flatMap(GenerateProviderAotCache::getArchiveFile);
+        });
+        var distStartupArchiveIfEnabled = (Callable<Object>) () -> distStartupArchiveFile.isPresent() ? distStartupArchiveFile : List.of();
+
+        // Only warn about the AppCDS fallback when it happened, not when a CDS task is run directly
+        Action<Task> warnAboutAotFallback = task -> {
+            if (aotCache.get() && startupArchive.getOrNull() == StartupArchive.CDS) {
+                task.getLogger().warn("kiteProvider.startup.aotCache requires a JDK {}+ toolchain; generating an AppCDS archive instead",
+                        StartupArchive.AOT_MIN_JAVA_VERSION);
+            }
+        };
+        generateProviderCds.configure(task -> task.doFirst(warnAboutAotFallback));
+        generateDistCds.configure(task -> task.doFirst(warnAboutAotFallback));
+
+        project.getTasks().register("compareProviderStartup", CompareProviderStartup.class, task -> {
+            task.setDescription("Compares provider startup time with and without the startup archive.");
+            task.onlyIf("kiteProvider.startup.cds or kiteProvider.startup.aotCache is enabled", t -> startupArchive.isPresent());
+            task.getProviderJar().set(providerJar);
+            task.getClasspath().from(providerClasspath);
+            task.getJavaLauncher().set(javaLauncher);
+            task.getJvmArgs().set(jvmArgs);
+            task.getStartupArchive().set(startupArchive);
+            task.getArchiveFile().set(startupArchiveFile);
+            task.getReadyPattern().set(startup.getReadyPattern());
+            task.getReadyTimeout().set(startup.getTrainingTimeout());
+            task.getReportFile().set(project.getLayout().getBuildDirectory().file("reports/kite/startup-comparison.json"));
+        });
+
+        var jarName = providerJar.map(file -> file.getAsFile().getName());
+        var generateLauncherScript = project.getTasks().register("generateLauncherScript", GenerateLauncherScript.class, task -> {
+            task.setDescription("Generates the launcher script of the minimized distribution.");
+            task.getJarName().set(jarName);
+            task.getJvmArgs().set(jvmArgs);
+            task.getStartupArchive().set(startupArchive);
+            task.getScriptFile().set(project.getLayout().getBuildDirectory().file("kite/launcher/provider"));
+        });
+
+        // Register minimized distribution task
+        var minDistDir = project.getLayout().getBuildDirectory().dir(name.map(n -> "install/" + n + "-min"));
+        var installMinDist = project.getTasks().register("installMinDist", Copy.class, task -> {
+            task.from(providerJar, spec -> {
+                spec.into("lib");
+            });
+            task.from(providerClasspath, spec -> {
+                spec.into("lib");
+            });
+            task.from(startupArchiveIfEnabled, spec -> {
+                spec.into("lib");
+            });
+            task.from(generateLauncherScript, spec -> {
+                spec.into("bin");
+                spec.filePermissions(permissions -> permissions.unix("rwxr-xr-x"));
+            });
+            task.from(generateMinProviderManifest);
+
+            task.into(minDistDir);
+
+            task.doLast(stampLibJars(startupArchive.map(archive -> true)));
+        });
+
+        var installDist = project.getTasks().named(DistributionPlugin.TASK_INSTALL_NAME, Sync.class);
+        var dependencyJarNames = runtimeClasspath.flatMap(Configuration::getElements)
+                .map(dependencies -> dependencies.stream().map(dependency -> dependency.getAsFile().getName()).toList());
+
+        // Unless copying, installDist leaves the dependency JARs to be linked or cloned from the Gradle cache. With a
+        // startup archive they are copied, as stamping them with the training time would change the cache entries.
+        var hasStartupArchive = startupArchive.map(archive -> true).orElse(false);
+        var installMode = extension.getInstallMode().map(InstallMode::parse)
+                .zip(hasStartupArchive, (mode, archive) -> archive ? InstallMode.COPY : mode);
+        var linkDependencies = installMode.map(mode -> mode != InstallMode.COPY);
+        var dependencyJars = project.files(runtimeClasspath);
+        installDist.configure(task -> {
+            // Only installDist ships the startup archive, as distZip and distTar don't give the JARs the training time
+            task.into("lib", spec -> spec.from(distStartupArchiveIfEnabled));
+            task.getInputs().property("kiteInstallMode", installMode.map(Enum::name));
+            task.exclude(element -> linkDependencies.get() && dependencyJars.contains(element.getFile()));
+            task.preserve(filter -> filter.include(element -> linkDependencies.get()
+                    && element.getRelativePath().getSegments().length == 2
+                    && element.getRelativePath().getSegments()[0].equals("lib")
+                    && dependencyJarNames.get().contains(element.getName())));
+            task.doFirst(unlinkLibJars(linkDependencies, dependencyJarNames, dependencyJars));
+            task.doLast(installDependencyJars(installMode, dependencyJars));
+            task.doLast(stampLibJars(startupArchive.map(archive -> true)));
+            task.doLast(writeInstalledArgfile(distributionClasspathNames));
+        });
+
+        // Register the distributions linking their dependency JARs from the host's shared library store
+        project.getTasks().register("installSharedDist", InstallSharedDist.class, task -> {
+            task.setDescription("Installs the installDist distribution with its dependency JARs linked from the shared library store.");
+            task.dependsOn(installDist);
+            task.getDistribution().set(project.getLayout().dir(installDist.map(Sync::getDestinationDir)));
+            task.getSharedJars().set(dependencyJarNames);
+            task.getStore().set(extension.getLibraryStore());
+            task.getDestination().set(project.getLayout().getBuildDirectory().dir(name.map(n -> "install/" + n + "-shared")));
+        });
+        project.getTasks().register("installSharedMinDist", InstallSharedDist.class, task -> {
+            task.setDescription("Installs the minimized distribution with its dependency JARs linked from the shared library store.");
+            task.dependsOn(installMinDist);
+            task.getDistribution().set(minDistDir);
+            task.getSharedJars().set(dependencyJarNames);
+            task.getStore().set(extension.getLibraryStore());
+            task.getDestination().set(project.getLayout().getBuildDirectory().dir(name.map(n -> "install/" + n + "-min-shared")));
+        });
+
+        // Register the startup benchmark of the installed distributions
+        var benchmark = extension.getBenchmark();
+        project.getTasks().register("benchmarkProviderStartup", BenchmarkProviderStartup.class, task -> {
+            task.setDescription("Measures the startup time of the installed distributions and checks it against the budget and baseline.");
+            task.dependsOn(installDist, installMinDist);
+            task.getDistributions().put("installDist", project.getLayout().dir(installDist.map(Sync::getDestinationDir)));
+            task.getDistributions().put("installMinDist", minDistDir);
+            task.getRuns().set(benchmark.getRuns());
+            task.getReadyPattern().set(startup.getReadyPattern());
+            task.getReadyTimeout().set(startup.getTrainingTimeout());
+            task.getBudget().set(benchmark.getStartupBudget());
+            task.getBaselineFile().set(benchmark.getStartupBaseline());
+            task.getTolerancePercent().set(benchmark.getTolerancePercent());
+            task.getReportFile().set(project.getLayout().getBuildDirectory().file("reports/kite/startup-benchmark.json"));
+        });
+        project.getTasks().register("benchmarkProviderFootprint", BenchmarkProviderFootprint.class, task -> {
+            task.setDescription("Measures the memory footprint of the ready minimized distribution and checks it against the budget.");
+            task.dependsOn(installMinDist);
+            task.getDistribution().set(minDistDir);
+            task.getJavaLauncher().set(javaLauncher);
+            task.getReadyPattern().set(startup.getReadyPattern());
+            task.getReadyTimeout().set(startup.getTrainingTimeout());
+            task.getBudget().set(benchmark.getFootprintBudget());
+            task.getTolerancePercent().set(benchmark.getTolerancePercent());
+            task.getReportFile().set(project.getLayout().getBuildDirectory().file("reports/kite/footprint.json"));
+        });
+
+        // Register the JMH source set and harness for microbenchmarks of the provider code. A jmh
+        // source set of an earlier plugin, e.g. me.champeau.jmh, comes with its own JMH dependencies
+        var ownJmhSourceSet = sourceSets.findByName("jmh") == null;
+        var jmhSourceSet = createSourceSetOnMain(project, sourceSets, mainSourceSet, "jmh");
+        var jmhVersion = benchmark.getJmhVersion();
+        if (ownJmhSourceSet) {
+            project.getDependencies().addProvider(jmhSourceSet.getImplementationConfigurationName(),
+                    jmhVersion.map(v -> "org.openjdk.jmh:jmh-core:" + v));
+            project.getDependencies().addProvider(jmhSourceSet.getAnnotationProcessorConfigurationName(),
+                    jmhVersion.map(v -> "org.openjdk.jmh:jmh-generator-annprocess:" + v));
+        }
 
-                try {
-                    manifestFile.getParentFile().mkdirs();
-                    Files.writeString(manifestFile.toPath(), content);
-                } catch (IOException e) {
-                    throw new RuntimeException("Failed to write provider.json", e);
+        var jmhReport = project.getLayout().getBuildDirectory().file("reports/kite/jmh.json");
+        project.getTasks().register("providerJmh", JavaExec.class, task -> {
+            task.setDescription("Runs the JMH benchmarks of the jmh source set in JVMs forked with the launcher's JVM arguments.");
+            task.setClasspath(jmhSourceSet.getRuntimeClasspath());
+            task.getMainClass().set("org.openjdk.jmh.Main");
+            task.getJavaLauncher().set(javaLauncher);
+            // The benchmarks themselves run in forks with the start script options
+            task.getArgumentProviders().add(() -> {
+                var args = new ArrayList<String>();
+                var forkJvmArgs = startScriptJvmArgs.get();
+                if (!forkJvmArgs.isEmpty()) {
+                    args.add("-jvmArgsAppend");
+                    args.add(jmhJvmArgs(forkJvmArgs));
                 }
+                args.addAll(List.of("-rf", "json", "-rff", jmhReport.get().getAsFile().getAbsolutePath()));
+                return args;
             });
+            task.getOutputs().file(jmhReport);
+            task.getOutputs().upToDateWhen(t -> false);
+            task.doFirst(t -> jmhReport.get().getAsFile().getParentFile().mkdirs());
         });
 
-        // Wire up installDist to generate manifest
-        installDistTask.configure(task -> {
-            task.finalizedBy("generateProviderManifest");
+        // Register the load test, driven by the generated harness of the loadTest source set
+        var loadTest = extension.getLoadTest();
+        var generateLoadTestHarness = project.getTasks().register("generateLoadTestHarness", GenerateLoadTestHarness.class, task -> {
+            task.setDescription("Generates the load test harness sources of the loadTest source set.");
+            task.getOutputDirectory().set(project.getLayout().getBuildDirectory().dir("generated/sources/kite/loadTest"));
+        });
+        var loadTestSourceSet = createSourceSetOnMain(project, sourceSets, mainSourceSet, "loadTest");
+        loadTestSourceSet.getJava().srcDir(generateLoadTestHarness);
+        project.getTasks().register("loadTestProvider", LoadTestProvider.class, task -> {
+            task.setDescription("Replays a mix of RPCs against the installed minimized distribution and reports throughput and latencies.");
+            task.dependsOn(installMinDist, loadTestSourceSet.getClassesTaskName());
+            task.getDistribution().set(minDistDir);
+            task.getClasspath().from(loadTestSourceSet.getRuntimeClasspath());
+            task.getJavaLauncher().set(javaLauncher);
+            task.getDriverClass().set(loadTest.getDriverClass());
+            task.getProtocolVersion().set(protocolVersion);
+            task.getReadyPattern().set(startup.getReadyPattern());
+            task.getReadyTimeout().set(startup.getTrainingTimeout());
+            task.getConcurrency().set(loadTest.getConcurrency());
+            task.getWarmup().set(loadTest.getWarmup());
+            task.getDuration().set(loadTest.getDuration());
+            task.getMix().set(loadTest.getMix());
+            task.getReportFile().set(project.getLayout().getBuildDirectory().file("reports/kite/load-test.json"));
         });
 
-        // Register minimized distribution task
-        project.getTasks().register("installMinDist", Copy.class, task -> {
-            var shadowJarTask = project.getTasks().named("shadowJar", ShadowJar.class);
-            task.dependsOn(shadowJarTask);
+        // Register the distribution bundling a jlink runtime image
+        var runtime = extension.getRuntime();
+        runtime.getCompression().convention(javaLauncher.map(launcher ->
+                BuildRuntimeImage.defaultCompression(launcher.getMetadata().getLanguageVersion().asInt())));
+        var buildRuntimeImage = project.getTasks().register("buildRuntimeImage", BuildRuntimeImage.class, task -> {
+            task.setDescription("Builds a minimal Java runtime image for the provider JAR with jlink.");
+            task.getProviderJar().set(providerJar);
+            task.getClasspath().from(dependencyJarsIfThin);
+            task.getJavaLauncher().set(javaLauncher);
+            task.getAdditionalModules().set(runtime.getModules());
+            task.getCompression().set(runtime.getCompression());
+            task.getImageDirectory().set(project.getLayout().getBuildDirectory().dir("kite/runtime/image"));
+        });
+        var generateRuntimeLauncherScript = project.getTasks().register("generateRuntimeLauncherScript", GenerateLauncherScript.class, task -> {
+            task.setDescription("Generates the launcher script of the runtime distribution.");
+            task.getJarName().set(jarName);
+            task.getJvmArgs().set(jvmArgs);
+            task.getRuntimeDirectory().set("runtime");
+            task.getScriptFile().set(project.getLayout().getBuildDirectory().file("kite/launcher/runtime/provider"));
+        });
 
-            task.from(shadowJarTask.map(ShadowJar::getArchiveFile), spec -> {
+        project.getTasks().register("installRuntimeDist", Copy.class, task -> {
+            task.from(providerJar, spec -> {
+                spec.into("lib");
+            });
+            task.from(providerClasspath, spec -> {
                 spec.into("lib");
             });
+            task.from(generateRuntimeLauncherScript, spec -> {
+                spec.into("bin");
+                spec.filePermissions(permissions -> permissions.unix("rwxr-xr-x"));
+            });
+            task.from(buildRuntimeImage, spec -> {
+                spec.into("runtime");
+            });
+            task.from(generateMinProviderManifest);
 
-            task.into(project.getLayout().getBuildDirectory().dir("install/" + name + "-min"));
-
-            task.doLast(t -> {
-                var buildDir = project.getLayout().getBuildDirectory().get().getAsFile();
-                var binDir = new File(buildDir, "install/" + name + "-min/bin");
-                binDir.mkdirs();
-
-                // Create launcher script
-                var launcherScript = new File(binDir, "provider");
-                var scriptContent = """
-                    #!/bin/sh
-                    SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
-                    exec java --add-opens=java.base/java.nio=ALL-UNNAMED --add-opens=java.base/sun.nio.ch=ALL-UNNAMED -jar "$SCRIPT_DIR/../lib/%s-provider.jar" "$@"
-                    """.formatted(name);
-
-                try {
-                    Files.writeString(launcherScript.toPath(), scriptContent);
-                    launcherScript.setExecutable(true);
-                } catch (IOException e) {
-                    throw new RuntimeException("Failed to create launcher script", e);
-                }
+            task.into(project.getLayout().getBuildDirectory().dir(name.map(n -> "install/" + n + "-runtime")));
+        });
 
-                // Generate provider.json
-                var manifestFile = new File(buildDir, "install/" + name + "-min/provider.json");
-                var manifestContent = String.format("""
-                    {
-                        "name": "%s",
-                        "version": "%s",
-                        "protocolVersion": %d,
-                        "executable": "bin/provider"
-                    }
-                    """, name, project.getVersion(), protocolVersion);
+        // Register the GraalVM native executable distribution
+        var nativeImage = extension.getNativeImage();
+        var graalLauncher = project.getExtensions().getByType(JavaToolchainService.class).launcherFor(spec -> {
+            spec.getLanguageVersion().set(javaExtension.getToolchain().getLanguageVersion().orElse(JavaLanguageVersion.current()));
+            spec.getNativeImageCapable().set(true);
+        });
+        var metadataDir = project.getLayout().getBuildDirectory().dir("kite/native/metadata");
+        var collectReachabilityMetadata = project.getTasks().register("collectReachabilityMetadata", Test.class, task -> {
+            task.setDescription("Runs the tests under the native-image tracing agent to collect reachability metadata.");
+            var testSourceSet = sourceSets.getByName(SourceSet.TEST_SOURCE_SET_NAME);
+            task.setTestClassesDirs(testSourceSet.getOutput().getClassesDirs());
+            task.setClasspath(testSourceSet.getRuntimeClasspath());
+            task.useJUnitPlatform();
+            task.getJavaLauncher().set(graalLauncher);
+            // A single test JVM, so the agent writes one consistent configuration
+            task.setMaxParallelForks(1);
+            task.getJvmArgumentProviders().add(new NativeImageAgent(metadataDir));
+        });
+        var collectedMetadata = project.files(metadataDir).builtBy(collectReachabilityMetadata);
+
+        var buildNativeImage = project.getTasks().register("buildNativeImage", BuildNativeImage.class, task -> {
+            task.setDescription("Builds a native executable from the provider JAR with GraalVM native-image.");
+            task.getProviderJar().set(providerJar);
+            task.getClasspath().from(providerClasspath);
+            task.getJavaLauncher().set(graalLauncher);
+            task.getMetadataDirectories().from((Callable<Object>) () -> nativeImage.getCollectMetadata().get() ? collectedMetadata : List.of());
+            task.getBuildArgs().set(nativeImage.getBuildArgs());
+            task.getExecutable().set(project.getLayout().getBuildDirectory().file("kite/native/provider"));
+        });
+        var generateNativeProviderManifest = project.getTasks().register("generateNativeProviderManifest", GenerateProviderManifest.class, task -> {
+            task.setDescription("Generates the provider.json manifest of the native distribution.");
+            task.getProviderName().set(name);
+            task.getProviderVersion().set(version);
+            task.getProtocolVersion().set(protocolVersion);
+            task.getExecutable().set("bin/provider");
+            task.getManifestFile().set(project.getLayout().getBuildDirectory().file("generated/kite/native/provider.json"));
+        });
 
-                try {
-                    Files.writeString(manifestFile.toPath(), manifestContent);
-                } catch (IOException e) {
-                    throw new RuntimeException("Failed to write provider.json", e);
-                }
+        project.getTasks().register("installNativeDist", Copy.class, task -> {
+            task.from(buildNativeImage, spec -> {
+                spec.into("bin");
+                spec.filePermissions(permissions -> permissions.unix("rwxr-xr-x"));
+            });
+            task.from(generateNativeProviderManifest);
+
+            task.into(project.getLayout().getBuildDirectory().dir(name.map(n -> "install/" + n + "-native")));
+        });
+
+        // Register the distribution restoring a CRaC checkpoint taken at install time
+        var generateCracLauncherScript = project.getTasks().register("generateCracLauncherScript", GenerateLauncherScript.class, task -> {
+            task.setDescription("Generates the launcher script of the CRaC distribution.");
+            task.getJarName().set(jarName);
+            task.getJvmArgs().set(jvmArgs);
+            task.getCracImage().set(CRAC_IMAGE);
+            task.getScriptFile().set(project.getLayout().getBuildDirectory().file("kite/launcher/crac/provider"));
+        });
+        var cracDistDir = project.getLayout().getBuildDirectory().dir(name.map(n -> "install/" + n + "-crac"));
+        var prepareCracDist = project.getTasks().register("prepareCracDist", Copy.class, task -> {
+            task.setDescription("Installs the CRaC distribution before its checkpoint is taken.");
+            task.from(providerJar, spec -> {
+                spec.into("lib");
             });
+            task.from(providerClasspath, spec -> {
+                spec.into("lib");
+            });
+            task.from(generateCracLauncherScript, spec -> {
+                spec.into("bin");
+                spec.filePermissions(permissions -> permissions.unix("rwxr-xr-x"));
+            });
+            task.from(generateMinProviderManifest);
+
+            task.into(cracDistDir);
+        });
+        project.getTasks().register("installCracDist", CheckpointProvider.class, task -> {
+            task.setDescription("Creates a distribution restoring a warmed-up CRaC checkpoint of the provider.");
+            task.dependsOn(prepareCracDist);
+            task.getInstallDirectory().set(cracDistDir);
+            task.getJarName().set(jarName);
+            task.getImageName().set(CRAC_IMAGE);
+            task.getJavaLauncher().set(javaLauncher);
+            task.getJvmArgs().set(jvmArgs);
+            task.getReadyPattern().set(startup.getReadyPattern());
+            task.getReadyTimeout().set(startup.getTrainingTimeout());
         });
+
+        // The shadow distribution runs the shadow JAR, so it can use the archive when that JAR was trained
+        if (shadowApplied) {
+            var packaging = extension.getPackaging().map(JarPackaging::parse);
+            Provider<StartupArchive> shadowStartupArchive = packaging.zip(startupArchive,
+                    (jarPackaging, archive) -> jarPackaging == JarPackaging.SHADOW ? archive : null);
+
+            project.getTasks().withType(Sync.class).named(n -> n.equals("installShadowDist")).configureEach(task -> {
+                task.into("lib", spec -> spec.from(
+                        (Callable<Object>) () -> shadowStartupArchive.isPresent() ? startupArchiveFile : List.of()));
+                task.doLast(stampLibJars(shadowStartupArchive.map(archive -> true)));
+            });
+        }
     }
 
     /**
-     * Auto-detect the main class by scanning source files for a class extending ProviderServer.
-     * Looks for "extends ProviderServer" pattern in Java source files.
+     * A list resolving a provider on access. {@code CreateStartScripts} only takes an
+     * {@code Iterable} for its JVM options, and fingerprints it as an input, which works for lists
+     * but not for arbitrary iterables like lambdas.
      */
-    private String readMainClassFromManifest(Project project) {
-        var sourceSets = project.getExtensions().getByType(SourceSetContainer.class);
-        var mainSourceSet = sourceSets.getByName("main");
+    private static final class ProviderList extends AbstractList<String> {
+
+        private final Provider<List<String>> provider;
+
+        ProviderList(Provider<List<String>> provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public String get(int index) {
+            return provider.get().get(index);
+        }
+
+        @Override
+        public int size() {
+            return provider.get().size();
+        }
+    }
+
+    /**
+     * The native-image tracing agent option, resolving the metadata directory when the test JVM
+     * starts, and declaring it as an output of the task.
+     */
+    static final class NativeImageAgent implements CommandLineArgumentProvider {
 
-        for (File srcDir : mainSourceSet.getJava().getSrcDirs()) {
-            if (!srcDir.exists()) continue;
+        private final Provider<Directory> outputDirectory;
 
+        NativeImageAgent(Provider<Directory> outputDirectory) {
+            this.outputDirectory = outputDirectory;
+        }
+
+        @OutputDirectory
+        public Provider<Directory> getOutputDirectory() {
+            return outputDirectory;
+        }
+
+        @Override
+        public Iterable<String> asArguments() {
+            return List.of("-agentlib:native-image-agent=config-output-dir=" + outputDirectory.get().getAsFile().getAbsolutePath());
+        }
+    }
+
+    private static void configureTraining(ProviderTrainingTask task, Provider<RegularFile> providerJar, FileCollection classpath,
+                                          Provider<JavaLauncher> javaLauncher, Provider<List<String>> jvmArgs,
+                                          StartupSpec startup) {
+        task.getProviderJar().set(providerJar);
+        task.getClasspath().from(classpath);
+        task.getJavaLauncher().set(javaLauncher);
+        task.getJvmArgs().set(jvmArgs);
+        task.getReadyPattern().set(startup.getReadyPattern());
+        task.getReadyTimeout().set(startup.getTrainingTimeout());
+    }
+
+    /**
+     * Create a source set that sees the main classes and their dependencies, like {@code test}.
+     * A source set of that name created by another plugin is reused as is.
+     */
+    private static SourceSet createSourceSetOnMain(Project project, SourceSetContainer sourceSets, SourceSet main, String name) {
+        var existing = sourceSets.findByName(name);
+        if (existing != null) {
+            return existing;
+        }
+        var sourceSet = sourceSets.create(name, s -> {
+            s.setCompileClasspath(s.getCompileClasspath().plus(main.getOutput()));
+            s.setRuntimeClasspath(s.getRuntimeClasspath().plus(main.getOutput()));
+        });
+        var configurations = project.getConfigurations();
+        configurations.named(sourceSet.getImplementationConfigurationName(),
+                c -> c.extendsFrom(configurations.getByName(JavaPlugin.IMPLEMENTATION_CONFIGURATION_NAME)));
+        configurations.named(sourceSet.getRuntimeOnlyConfigurationName(),
+                c -> c.extendsFrom(configurations.getByName(JavaPlugin.RUNTIME_ONLY_CONFIGURATION_NAME)));
+        return sourceSet;
+    }
+
+    /**
+     * Startup archives are only accepted for JARs with the modification time seen during training,
+     * which copying doesn't preserve. Distributions without an archive keep the real modification
+     * times, so size and time based syncs like rsync still see rebuilt JARs.
+     *
+     * @param enabled present when the installed distribution ships a startup archive
+     */
+    private static Action<Task> stampLibJars(Provider<Boolean> enabled) {
+        return task -> {
+            if (!enabled.isPresent()) return;
+
+            var lib = task.getOutputs().getFiles().getSingleFile().toPath().resolve("lib");
+            try (var jars = Files.newDirectoryStream(lib, "*.jar")) {
+                for (var jar : jars) {
+                    Files.setLastModifiedTime(jar, StartupArchive.JAR_TIMESTAMP);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to set the modification time of the JARs in " + lib, e);
+            }
+        };
+    }
+
+    /**
+     * Write the classpath argfile of the start script into the {@code lib/} directory of
+     * {@code installDist}. An argfile can only hold absolute entries to be usable from any working
+     * directory, so it is written for the install location, which its first line records as a
+     * comment. The start script only uses it from that location, and builds the classpath itself
+     * when the distribution was moved.
+     *
+     * @param classpath file names of the classpath entries in {@code lib/}, in classpath order
+     */
+    private static Action<Task> writeInstalledArgfile(Provider<List<String>> classpath) {
+        return task -> {
+            var argfile = task.getOutputs().getFiles().getSingleFile().toPath().resolve("lib/" + CLASSPATH_ARGFILE);
             try {
-                var result = scanForProviderServer(srcDir.toPath(), srcDir.toPath());
-                if (result != null) {
-                    project.getLogger().lifecycle("Auto-detected provider main class: " + result);
-                    return result;
+                // The start script compares the comment with its APP_HOME, which has the symbolic links resolved
+                var lib = argfile.getParent().toRealPath();
+                var entries = classpath.get().stream().map(name -> lib.resolve(name).toString()).toList();
+                Files.writeString(argfile, "# " + lib.getParent() + "\n" + GenerateClasspathArgfile.argfile(entries));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write " + argfile, e);
+            }
+        };
+    }
+
+    /**
+     * Delete the JARs in the {@code lib/} directory of {@code installDist} that share their file
+     * with another path, like the hard links of an earlier linking install, before the sync
+     * writes over them. The sync writes into existing files, so it would truncate and rewrite the
+     * linked entry of the Gradle cache. The JARs a linking mode installs itself are kept; the sync
+     * leaves them alone.
+     */
+    private static Action<Task> unlinkLibJars(Provider<Boolean> linkDependencies, Provider<List<String>> dependencyJarNames,
+                                              FileCollection dependencies) {
+        return task -> {
+            var lib = task.getOutputs().getFiles().getSingleFile().toPath().resolve("lib");
+            if (!Files.isDirectory(lib)) return;
+
+            var linked = linkDependencies.get() ? Set.copyOf(dependencyJarNames.get()) : Set.<String>of();
+            var sources = new HashMap<String, Path>();
+            dependencies.forEach(dependency -> sources.putIfAbsent(dependency.getName(), dependency.toPath()));
+            try (var jars = Files.newDirectoryStream(lib, "*.jar")) {
+                for (var jar : jars) {
+                    var jarName = jar.getFileName().toString();
+                    if (!linked.contains(jarName) && isShared(jar, sources.get(jarName))) {
+                        Files.delete(jar);
+                    }
                 }
             } catch (IOException e) {
-                throw new RuntimeException("Failed to scan source files", e);
+                throw new UncheckedIOException("Failed to unlink the dependency JARs in " + lib, e);
             }
-        }
+        };
+    }
 
-        throw new IllegalStateException(
-                "Could not auto-detect mainClass. Either set kiteProvider.mainClass explicitly, " +
-                "or ensure your provider class extends ProviderServer.");
+    /**
+     * Whether writing to a file would also change another path: a symbolic link, a hard link, or
+     * the source JAR itself.
+     */
+    private static boolean isShared(Path file, Path source) throws IOException {
+        if (Files.isSymbolicLink(file) || (source != null && Files.exists(source) && Files.isSameFile(file, source))) {
+            return true;
+        }
+        try {
+            return (Integer) Files.getAttribute(file, "unix:nlink", LinkOption.NOFOLLOW_LINKS) > 1;
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            // No link count outside Unix; hard links to other paths than the source go unnoticed
+            return false;
+        }
     }
 
     /**
-     * Recursively scan for Java files containing a class extending ProviderServer or KiteProvider.
+     * Link or clone the dependency JARs into the {@code lib/} directory of {@code installDist},
+     * skipping those already in place. JARs no longer on the runtime classpath aren't preserved, so
+     * the sync has deleted them already.
      */
-    private String scanForProviderServer(Path baseDir, Path currentDir) throws IOException {
-        try (var stream = Files.list(currentDir)) {
-            for (Path path : stream.toList()) {
-                if (Files.isDirectory(path)) {
-                    var result = scanForProviderServer(baseDir, path);
-                    if (result != null) return result;
-                } else if (path.toString().endsWith(".java")) {
-                    var content = Files.readString(path);
-                    // Check for both ProviderServer and KiteProvider (which extends ProviderServer)
-                    if (content.contains("extends ProviderServer") || content.contains("extends KiteProvider")) {
-                        // Extract class name from file path
-                        var relativePath = baseDir.relativize(path).toString();
-                        var className = relativePath
-                                .replace(File.separator, ".")
-                                .replace(".java", "");
-                        return className;
+    private static Action<Task> installDependencyJars(Provider<InstallMode> installMode, FileCollection dependencies) {
+        return task -> {
+            var mode = installMode.get();
+            if (mode == InstallMode.COPY) return;
+
+            var lib = task.getOutputs().getFiles().getSingleFile().toPath().resolve("lib");
+            var installed = 0;
+            var total = 0;
+            try {
+                Files.createDirectories(lib);
+                for (var dependency : dependencies) {
+                    if (mode.install(dependency.toPath(), lib.resolve(dependency.getName()))) {
+                        installed++;
                     }
+                    total++;
                 }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to install the dependency JARs into " + lib, e);
+            }
+            task.getLogger().info("Installed {} of {} dependency JARs into {} in {} mode, the others were unchanged",
+                    installed, total, lib, mode.name().toLowerCase(Locale.ROOT));
+        };
+    }
+
+    /**
+     * Join JVM arguments into a JMH {@code -jvmArgsAppend} value. JMH splits the value on spaces
+     * without any quoting, so an argument containing whitespace can't be passed intact.
+     */
+    static String jmhJvmArgs(List<String> jvmArgs) {
+        for (String arg : jvmArgs) {
+            if (arg.chars().anyMatch(Character::isWhitespace)) {
+                throw new GradleException("JMH can't pass the JVM argument '" + arg + "' to its forks, "
+                        + "because it splits -jvmArgsAppend on spaces. Remove the whitespace from the argument.");
             }
         }
-        return null;
+        return String.join(" ", jvmArgs);
     }
 }
@@ -0,0 +1,75 @@
+package cloud.kitelang.gradle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency distribution of load test calls in microseconds, reported like an HDR histogram:
+ * the usual percentiles plus the count per power-of-two latency bucket with its cumulative
+ * percentile. Percentiles are exact, as all samples are kept.
+ */
+final class LatencyHistogram {
+
+    private static final double[] PERCENTILES = {0.50, 0.90, 0.99, 0.999, 0.9999};
+    private static final String[] PERCENTILE_NAMES = {"p50Micros", "p90Micros", "p99Micros", "p999Micros", "p9999Micros"};
+
+    private long[] micros = new long[1024];
+    private int count;
+    private boolean sorted = true;
+
+    void record(long latencyMicros) {
+        if (count == micros.length) {
+            micros = Arrays.copyOf(micros, count * 2);
+        }
+        micros[count++] = latencyMicros;
+        sorted = false;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * Nearest-rank percentile, e.g. {@code 0.99}.
+     */
+    long percentile(double percentile) {
+        sort();
+        return count == 0 ? 0 : micros[Math.max(0, (int) Math.ceil(percentile * count) - 1)];
+    }
+
+    Map<String, Object> toJson() {
+        sort();
+        var fields = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            fields.put(PERCENTILE_NAMES[i], percentile(PERCENTILES[i]));
+        }
+        fields.put("maxMicros", count == 0 ? 0 : micros[count - 1]);
+
+        var buckets = new ArrayList<Map<String, Object>>();
+        var index = 0;
+        for (long upTo = 1; index < count; upTo *= 2) {
+            var start = index;
+            while (index < count && micros[index] <= upTo) {
+                index++;
+            }
+            if (index > start) {
+                var bucket = new LinkedHashMap<String, Object>();
+                bucket.put("upToMicros", upTo);
+                bucket.put("count", index - start);
+                bucket.put("percentile", Math.round(10000.0 * index / count) / 100.0);
+                buckets.add(bucket);
+            }
+        }
+        fields.put("distribution", buckets);
+        return fields;
+    }
+
+    private void sort() {
+        if (!sorted) {
+            Arrays.sort(micros, 0, count);
+            sorted = true;
+        }
+    }
+}
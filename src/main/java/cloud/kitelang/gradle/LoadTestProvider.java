@@ -0,0 +1,239 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.UntrackedTask;
+import org.gradle.jvm.toolchain.JavaLauncher;
+import org.gradle.process.ExecOperations;
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.ZipFile;
+
+/**
+ * Load tests an installed provider distribution with a stand-in engine.
+ * <p>
+ * The distribution's {@code bin/provider} is started with {@code KITE_PROVIDER_LOAD_TEST=true},
+ * so handlers can switch to a local stub backend. Once it printed its handshake line, the
+ * generated {@code LoadTestHarness} of the {@code loadTest} source set connects to the advertised
+ * address through the configured {@code LoadTestDriver} and replays the RPC mix at the configured
+ * concurrency. Throughput and the latency histogram, overall and per RPC, are written as JSON.
+ */
+@UntrackedTask(because = "Load test results depend on the machine and are measured on every run")
+public abstract class LoadTestProvider extends DefaultTask {
+
+    /**
+     * Root directory of the installed distribution.
+     */
+    @Internal
+    public abstract DirectoryProperty getDistribution();
+
+    /**
+     * Runtime classpath of the {@code loadTest} source set.
+     */
+    @Internal
+    public abstract ConfigurableFileCollection getClasspath();
+
+    /**
+     * The JDK running the harness.
+     */
+    @Internal
+    public abstract Property<JavaLauncher> getJavaLauncher();
+
+    /**
+     * Class implementing {@code cloud.kitelang.loadtest.LoadTestDriver}.
+     */
+    @Internal
+    public abstract Property<String> getDriverClass();
+
+    /**
+     * Protocol version the provider must announce in its handshake line.
+     */
+    @Internal
+    public abstract Property<Integer> getProtocolVersion();
+
+    /**
+     * Regular expression matching the provider's handshake line on stdout.
+     */
+    @Internal
+    public abstract Property<String> getReadyPattern();
+
+    /**
+     * How long the provider may take to become ready.
+     */
+    @Internal
+    public abstract Property<Duration> getReadyTimeout();
+
+    /**
+     * Number of calls kept in flight.
+     */
+    @Internal
+    public abstract Property<Integer> getConcurrency();
+
+    /**
+     * How long calls are issued before measuring starts.
+     */
+    @Internal
+    public abstract Property<Duration> getWarmup();
+
+    /**
+     * How long calls are measured.
+     */
+    @Internal
+    public abstract Property<Duration> getDuration();
+
+    /**
+     * Relative weights of the RPCs.
+     */
+    @Internal
+    public abstract MapProperty<String, Integer> getMix();
+
+    /**
+     * The JSON report.
+     */
+    @OutputFile
+    public abstract RegularFileProperty getReportFile();
+
+    @Inject
+    protected abstract ExecOperations getExecOperations();
+
+    @TaskAction
+    public void loadTest() {
+        if (!getDriverClass().isPresent()) {
+            throw new GradleException("Set kiteProvider.loadTest.driverClass to a class of the loadTest source set "
+                    + "implementing cloud.kitelang.loadtest.LoadTestDriver");
+        }
+        // Fail before starting the provider; the plugin ships no driver, as only the provider knows its RPCs
+        if (!onClasspath(getDriverClass().get())) {
+            throw new GradleException("The load test driver " + getDriverClass().get() + " is not on the loadTest runtime classpath. "
+                    + "Implement cloud.kitelang.loadtest.LoadTestDriver in src/loadTest/java");
+        }
+        var mix = getMix().get().entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+        if (mix.isEmpty()) {
+            throw new GradleException("kiteProvider.loadTest.mix must give at least one RPC a positive weight");
+        }
+
+        var distribution = getDistribution().get().getAsFile();
+        var launcher = new File(distribution, "bin/provider");
+        var latencyLog = new File(getTemporaryDir(), "latencies.log");
+        try {
+            if (!launcher.canExecute()) {
+                throw new IOException("No executable launcher at " + launcher);
+            }
+            Files.deleteIfExists(latencyLog.toPath());
+            try (var provider = ProviderProcess.start(List.of(launcher.getAbsolutePath()), distribution,
+                    Map.of("KITE_PROVIDER_LOAD_TEST", "true"), getReadyPattern().get())) {
+                provider.awaitReady(getReadyTimeout().get());
+                var handshake = provider.readyLine().split("\\|");
+                if (handshake.length < 4) {
+                    throw new GradleException("Cannot read the provider address from its handshake line '" + provider.readyLine() + "'");
+                }
+                if (!handshake[1].equals(String.valueOf(getProtocolVersion().get()))) {
+                    throw new GradleException("The provider announced protocol version " + handshake[1]
+                            + ", but kiteProvider.protocolVersion is " + getProtocolVersion().get());
+                }
+
+                getExecOperations().javaexec(spec -> {
+                    spec.setExecutable(getJavaLauncher().get().getExecutablePath().getAsFile());
+                    spec.setClasspath(getClasspath());
+                    spec.getMainClass().set(GenerateLoadTestHarness.HARNESS_CLASS);
+                    spec.systemProperty("kite.loadTest.driver", getDriverClass().get());
+                    spec.systemProperty("kite.loadTest.network", handshake[2]);
+                    spec.systemProperty("kite.loadTest.address", handshake[3]);
+                    spec.systemProperty("kite.loadTest.protocolVersion", getProtocolVersion().get());
+                    spec.systemProperty("kite.loadTest.concurrency", getConcurrency().get());
+                    spec.systemProperty("kite.loadTest.warmupMillis", getWarmup().get().toMillis());
+                    spec.systemProperty("kite.loadTest.durationMillis", getDuration().get().toMillis());
+                    spec.systemProperty("kite.loadTest.mix", mix);
+                    spec.systemProperty("kite.loadTest.latencyLog", latencyLog.getAbsolutePath());
+                });
+                provider.stop();
+            }
+            report(Files.readAllLines(latencyLog.toPath()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load test " + distribution, e);
+        }
+    }
+
+    private boolean onClasspath(String className) {
+        var classFile = className.replace('.', '/') + ".class";
+        for (var entry : getClasspath()) {
+            if (entry.isDirectory()) {
+                if (new File(entry, classFile).isFile()) {
+                    return true;
+                }
+            } else if (entry.isFile()) {
+                try (var zip = new ZipFile(entry)) {
+                    if (zip.getEntry(classFile) != null) {
+                        return true;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read " + entry, e);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void report(List<String> latencies) throws IOException {
+        var overall = new LatencyHistogram();
+        var byRpc = new LinkedHashMap<String, LatencyHistogram>();
+        var errorsByRpc = new LinkedHashMap<String, Integer>();
+        for (var line : latencies) {
+            var fields = line.split(" ");
+            var micros = Long.parseLong(fields[1]);
+            overall.record(micros);
+            byRpc.computeIfAbsent(fields[0], rpc -> new LatencyHistogram()).record(micros);
+            errorsByRpc.merge(fields[0], "error".equals(fields[2]) ? 1 : 0, Integer::sum);
+        }
+        var seconds = getDuration().get().toMillis() / 1000.0;
+        var errors = errorsByRpc.values().stream().mapToInt(Integer::intValue).sum();
+
+        var rpcs = new LinkedHashMap<String, Object>();
+        byRpc.forEach((rpc, histogram) -> rpcs.put(rpc, summary(histogram, errorsByRpc.get(rpc), seconds)));
+        var report = summary(overall, errors, seconds);
+        report.put("concurrency", getConcurrency().get());
+        report.put("durationMillis", getDuration().get().toMillis());
+        report.put("rpcs", rpcs);
+
+        var reportFile = getReportFile().get().getAsFile().toPath();
+        Files.createDirectories(reportFile.getParent());
+        Files.writeString(reportFile, ProviderJson.write(report));
+        getLogger().lifecycle("Load test: {} calls/s at concurrency {}, p50 {} us, p99 {} us, {} errors",
+                Math.round(overall.count() / seconds), getConcurrency().get(), overall.percentile(0.50), overall.percentile(0.99), errors);
+        byRpc.forEach((rpc, histogram) -> getLogger().lifecycle("  {}: {} calls/s, p50 {} us, p99 {} us, {} errors",
+                rpc, Math.round(histogram.count() / seconds), histogram.percentile(0.50), histogram.percentile(0.99), errorsByRpc.get(rpc)));
+        if (overall.count() == 0) {
+            throw new GradleException("The load test completed no calls; see the harness output above");
+        }
+    }
+
+    private static Map<String, Object> summary(LatencyHistogram histogram, int errors, double seconds) {
+        var fields = new LinkedHashMap<String, Object>();
+        fields.put("calls", histogram.count());
+        fields.put("errors", errors);
+        fields.put("throughputPerSecond", Math.round(100 * histogram.count() / seconds) / 100.0);
+        fields.put("latency", histogram.toJson());
+        return fields;
+    }
+}
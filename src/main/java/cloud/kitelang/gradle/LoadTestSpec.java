@@ -0,0 +1,50 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+
+import java.time.Duration;
+
+/**
+ * Load test of the built provider, driven by a stand-in engine from the {@code loadTest} source set.
+ * <p>
+ * Usage in build.gradle:
+ * <pre>
+ * kiteProvider {
+ *     loadTest {
+ *         driverClass = 'com.example.provider.LocalStackDriver'
+ *         concurrency = 32
+ *         mix = [create: 1, read: 8, diff: 4]
+ *     }
+ * }
+ * </pre>
+ */
+public abstract class LoadTestSpec {
+
+    /**
+     * Class in the {@code loadTest} source set implementing {@code cloud.kitelang.loadtest.LoadTestDriver},
+     * which performs single RPCs against the provider.
+     */
+    public abstract Property<String> getDriverClass();
+
+    /**
+     * Number of calls kept in flight. Defaults to 8.
+     */
+    public abstract Property<Integer> getConcurrency();
+
+    /**
+     * How long calls are issued before measuring starts. Defaults to 5 seconds.
+     */
+    public abstract Property<Duration> getWarmup();
+
+    /**
+     * How long calls are measured. Defaults to 30 seconds.
+     */
+    public abstract Property<Duration> getDuration();
+
+    /**
+     * Relative weights of the RPCs passed to the driver. Defaults to
+     * {@code [create: 1, read: 5, diff: 4]}.
+     */
+    public abstract MapProperty<String, Integer> getMix();
+}
@@ -0,0 +1,200 @@
+package cloud.kitelang.gradle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Detects the provider main class, i.e. the class extending ProviderServer or KiteProvider.
+ * <p>
+ * Compiled classes are preferred: only the class file headers are parsed, and the
+ * superclass chain is followed so that indirect subclasses are found as well.
+ * Source files are scanned when the classes are missing or stale, i.e. a source file was added,
+ * edited, renamed or removed since the last compilation (see {@link SourceScanner}). Detection
+ * runs before compilation, so stale classes would otherwise report a provider class that no
+ * longer exists.
+ * <p>
+ * When an index directory is given, per-file results are persisted there (see
+ * {@link MainClassIndex}) so that later scans only re-examine changed files.
+ */
+class MainClassDetector {
+
+    private static final String NO_SUPERCLASS = "-";
+
+    /**
+     * Simple names of the SDK base classes a provider main class extends.
+     */
+    static final Set<String> PROVIDER_BASE_CLASSES = Set.of("ProviderServer", "KiteProvider");
+
+    private final Path indexDir;
+    private final long maxSourceFileSize;
+
+    /**
+     * @param indexDir          directory holding the persistent scan indexes, or null to disable them
+     * @param maxSourceFileSize source files larger than this many bytes are skipped
+     */
+    MainClassDetector(Path indexDir, long maxSourceFileSize) {
+        this.indexDir = indexDir;
+        this.maxSourceFileSize = maxSourceFileSize;
+    }
+
+    /**
+     * Detect the main class from compiled classes, falling back to source files when the
+     * classes are stale. If the source scan finds nothing, stale classes are still used.
+     *
+     * @param classesDirs directories containing compiled main classes
+     * @param sourceDirs  Java source directories of the main source set
+     * @return the binary name of the provider main class, or null if none was found
+     */
+    String detect(Iterable<File> classesDirs, Iterable<File> sourceDirs) throws IOException {
+        var classIndex = MainClassIndex.load(indexFile("classes.index"));
+        var hierarchy = new HashMap<String, ClassFileHeader>();
+        for (File classesDir : classesDirs) {
+            if (classesDir.isDirectory()) {
+                readClassHeaders(classesDir.toPath(), classIndex, hierarchy);
+            }
+        }
+        classIndex.save(true);
+        if (!hierarchy.isEmpty() && isCompiled(hierarchy, classesDirs, sourceDirs)) {
+            return findProviderClass(hierarchy);
+        }
+
+        var sourceIndex = MainClassIndex.load(indexFile("sources.index"));
+        try {
+            var scanner = new SourceScanner(sourceIndex, maxSourceFileSize);
+            for (File srcDir : sourceDirs) {
+                if (!srcDir.exists()) continue;
+
+                var result = scanner.scan(srcDir.toPath());
+                if (result != null) {
+                    return result;
+                }
+            }
+        } finally {
+            // The scan skips files sorting after a match, so entries of unvisited files are kept
+            sourceIndex.save(false);
+        }
+        return hierarchy.isEmpty() ? null : findProviderClass(hierarchy);
+    }
+
+    /**
+     * Check that every source file has a class file at least as new, and every top-level class a
+     * source file. Sources are matched to classes by path, so classes compiled from elsewhere
+     * (e.g. generated sources) count as stale and only cost a source scan.
+     */
+    static boolean isCompiled(Map<String, ClassFileHeader> hierarchy, Iterable<File> classesDirs,
+                              Iterable<File> sourceDirs) throws IOException {
+        var uncovered = new HashSet<String>();
+        for (String className : hierarchy.keySet()) {
+            var nested = className.indexOf('$');
+            uncovered.add(nested < 0 ? className : className.substring(0, nested));
+        }
+        for (File sourceDir : sourceDirs) {
+            if (!sourceDir.isDirectory()) continue;
+
+            var root = sourceDir.toPath();
+            var compiled = new boolean[]{true};
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) throws IOException {
+                    var fileName = path.getFileName().toString();
+                    if (!fileName.endsWith(".java") || fileName.equals("module-info.java")) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    var relative = root.relativize(path).toString().replace(File.separatorChar, '/');
+                    var className = relative.substring(0, relative.length() - ".java".length());
+                    uncovered.remove(className);
+                    if (!hasClassFile(classesDirs, className, attrs.lastModifiedTime().toMillis())) {
+                        compiled[0] = false;
+                        return FileVisitResult.TERMINATE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            if (!compiled[0]) {
+                return false;
+            }
+        }
+        return uncovered.isEmpty();
+    }
+
+    private static boolean hasClassFile(Iterable<File> classesDirs, String className, long sourceModified) {
+        for (File classesDir : classesDirs) {
+            var classFile = new File(classesDir, className + ".class");
+            if (classFile.lastModified() >= sourceModified) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Path indexFile(String name) {
+        return indexDir == null ? null : indexDir.resolve(name);
+    }
+
+    private void readClassHeaders(Path classesDir, MainClassIndex index,
+                                  Map<String, ClassFileHeader> hierarchy) throws IOException {
+        Files.walkFileTree(classesDir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) throws IOException {
+                var fileName = path.getFileName().toString();
+                if (fileName.endsWith(".class") && !fileName.equals("module-info.class")) {
+                    var header = decode(index.resolve(path, attrs, bytes -> encode(ClassFileHeader.parse(bytes))));
+                    hierarchy.put(header.className(), header);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static String encode(ClassFileHeader header) {
+        var superName = header.superClassName() == null ? NO_SUPERCLASS : header.superClassName();
+        return header.className() + " " + superName + " " + header.accessFlags();
+    }
+
+    private static ClassFileHeader decode(String value) {
+        var parts = value.split(" ");
+        var superName = parts[1].equals(NO_SUPERCLASS) ? null : parts[1];
+        return new ClassFileHeader(parts[0], superName, Integer.parseInt(parts[2]));
+    }
+
+    /**
+     * Find the concrete class whose superclass chain reaches a provider base class.
+     * When several match, the first in name order is returned so the result is stable.
+     */
+    static String findProviderClass(Map<String, ClassFileHeader> hierarchy) {
+        var candidates = new TreeSet<String>();
+        for (ClassFileHeader header : hierarchy.values()) {
+            if (header.isConcrete() && extendsProviderBase(header, hierarchy)) {
+                candidates.add(header.binaryName());
+            }
+        }
+        return candidates.isEmpty() ? null : candidates.first();
+    }
+
+    private static boolean extendsProviderBase(ClassFileHeader header, Map<String, ClassFileHeader> hierarchy) {
+        var superName = header.superClassName();
+        // Bounded by the number of known classes to guard against malformed cyclic input
+        for (int depth = 0; superName != null && depth <= hierarchy.size(); depth++) {
+            if (PROVIDER_BASE_CLASSES.contains(simpleName(superName))) {
+                return true;
+            }
+            var superHeader = hierarchy.get(superName);
+            superName = superHeader == null ? null : superHeader.superClassName();
+        }
+        return false;
+    }
+
+    private static String simpleName(String internalName) {
+        return internalName.substring(internalName.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,175 @@
+package cloud.kitelang.gradle;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent index of per-file main class detection results, stored under the build directory.
+ * <p>
+ * Each entry is keyed by file path and records the file size, modification time and content
+ * hash together with the scan result. A file is only re-examined when its size or modification
+ * time changed and its content hash no longer matches, so repeated builds only pay for the
+ * files that actually changed.
+ * <p>
+ * Lookups are thread-safe so the index can be shared by parallel scanners.
+ */
+class MainClassIndex {
+
+    private static final String FORMAT_HEADER = "# kite main class index v1";
+
+    private final Path indexFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> visited = ConcurrentHashMap.newKeySet();
+    private volatile boolean dirty;
+
+    /**
+     * An indexed scan result.
+     *
+     * @param size  file size in bytes
+     * @param mtime last modification time in milliseconds
+     * @param hash  hex SHA-256 of the bytes the scan result was computed from
+     * @param value the scan result recorded for the file
+     */
+    record Entry(long size, long mtime, String hash, String value) {
+    }
+
+    private MainClassIndex(Path indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Load the index from disk. A missing or unreadable index starts out empty.
+     */
+    static MainClassIndex load(Path indexFile) {
+        var index = new MainClassIndex(indexFile);
+        if (indexFile == null || !Files.isRegularFile(indexFile)) {
+            return index;
+        }
+        try {
+            var lines = Files.readAllLines(indexFile, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.get(0).equals(FORMAT_HEADER)) {
+                return index;
+            }
+            for (String line : lines.subList(1, lines.size())) {
+                var parts = line.split("\t", 5);
+                if (parts.length != 5) continue;
+                index.entries.put(parts[0], new Entry(
+                        Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3], parts[4]));
+            }
+        } catch (IOException | NumberFormatException e) {
+            // A corrupt index is simply rebuilt
+            index.entries.clear();
+        }
+        return index;
+    }
+
+    /**
+     * Look up the recorded value for a file, re-examining it with the given scanner when it changed.
+     *
+     * @param file    the file to look up
+     * @param attrs   the file attributes, as obtained while walking the tree
+     * @param scanner computes the value from the file contents when the entry is stale
+     */
+    String resolve(Path file, BasicFileAttributes attrs, Scanner scanner) throws IOException {
+        return resolve(file, attrs, Files::readAllBytes, scanner);
+    }
+
+    /**
+     * Look up the recorded value for a file whose result only depends on part of its contents.
+     * <p>
+     * The content hash covers exactly the bytes returned by the reader, so a file whose relevant
+     * part is unchanged keeps its recorded value even if the rest of it was edited.
+     *
+     * @param file    the file to look up
+     * @param attrs   the file attributes, as obtained while walking the tree
+     * @param reader  reads the part of the file the scanner needs
+     * @param scanner computes the value from the bytes returned by the reader
+     */
+    String resolve(Path file, BasicFileAttributes attrs, Reader reader, Scanner scanner) throws IOException {
+        var key = file.toAbsolutePath().toString();
+        visited.add(key);
+
+        var size = attrs.size();
+        var mtime = attrs.lastModifiedTime().toMillis();
+        var entry = entries.get(key);
+        if (entry != null && entry.size() == size && entry.mtime() == mtime) {
+            return entry.value();
+        }
+
+        var bytes = reader.read(file);
+        var hash = sha256(bytes);
+        if (entry != null && entry.hash().equals(hash)) {
+            // Touched but unchanged, e.g. after a checkout: keep the result, refresh the timestamp
+            entries.put(key, new Entry(size, mtime, hash, entry.value()));
+            dirty = true;
+            return entry.value();
+        }
+
+        var value = scanner.scan(bytes);
+        entries.put(key, new Entry(size, mtime, hash, value));
+        dirty = true;
+        return value;
+    }
+
+    /**
+     * Write the index back to disk if anything changed. Entries for files that were not visited
+     * during a complete scan are dropped.
+     *
+     * @param complete whether every indexed root was fully walked during this scan
+     */
+    void save(boolean complete) throws IOException {
+        if (complete && entries.keySet().retainAll(visited)) {
+            dirty = true;
+        }
+        if (!dirty || indexFile == null) {
+            return;
+        }
+
+        var content = new StringBuilder(FORMAT_HEADER).append('\n');
+        entries.forEach((path, entry) -> content.append(path).append('\t')
+                .append(entry.size()).append('\t')
+                .append(entry.mtime()).append('\t')
+                .append(entry.hash()).append('\t')
+                .append(entry.value()).append('\n'));
+
+        Files.createDirectories(indexFile.getParent());
+        var tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        Files.writeString(tempFile, content, StandardCharsets.UTF_8);
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        dirty = false;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Reads the contents of a changed file that are relevant to its scan result.
+     */
+    @FunctionalInterface
+    interface Reader {
+        byte[] read(Path file) throws IOException;
+    }
+
+    /**
+     * Computes the indexed value from the contents of a changed file.
+     */
+    @FunctionalInterface
+    interface Scanner {
+        String scan(byte[] bytes) throws IOException;
+    }
+}
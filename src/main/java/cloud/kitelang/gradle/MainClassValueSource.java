@@ -0,0 +1,70 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.ValueSource;
+import org.gradle.api.provider.ValueSourceParameters;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Auto-detects the provider main class (see {@link MainClassDetector}).
+ * <p>
+ * As a value source, the result is not stored in the configuration cache but recomputed
+ * each time a cached configuration is reused, so adding or renaming the provider class needs
+ * no reconfiguration. Recomputing is cheap thanks to the persistent scan index.
+ */
+public abstract class MainClassValueSource implements ValueSource<String, MainClassValueSource.Parameters> {
+
+    /**
+     * Parameters for main class detection.
+     */
+    public interface Parameters extends ValueSourceParameters {
+
+        /**
+         * Directories containing the compiled main classes.
+         */
+        ConfigurableFileCollection getClassesDirs();
+
+        /**
+         * Java source directories of the main source set.
+         */
+        ConfigurableFileCollection getSourceDirs();
+
+        /**
+         * Directory holding the persistent scan indexes.
+         */
+        DirectoryProperty getIndexDir();
+
+        /**
+         * Source files larger than this many bytes are skipped.
+         */
+        Property<Long> getMaxScannedSourceSize();
+    }
+
+    @Override
+    public String obtain() {
+        var parameters = getParameters();
+        var detector = new MainClassDetector(
+                parameters.getIndexDir().get().getAsFile().toPath(),
+                parameters.getMaxScannedSourceSize().get());
+
+        String result;
+        try {
+            result = detector.detect(parameters.getClassesDirs(), parameters.getSourceDirs());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to scan for provider main class", e);
+        }
+
+        if (result == null) {
+            throw new IllegalStateException(
+                    "Could not auto-detect mainClass. Either set kiteProvider.mainClass explicitly, " +
+                    "or ensure your provider class extends ProviderServer.");
+        }
+        Logging.getLogger(MainClassValueSource.class).lifecycle("Auto-detected provider main class: " + result);
+        return result;
+    }
+}
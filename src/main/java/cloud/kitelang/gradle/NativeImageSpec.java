@@ -0,0 +1,30 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+
+/**
+ * The GraalVM native executable built by {@code installNativeDist}.
+ * <p>
+ * Usage in build.gradle:
+ * <pre>
+ * kiteProvider {
+ *     nativeImage {
+ *         buildArgs.add('--initialize-at-build-time=com.example')
+ *     }
+ * }
+ * </pre>
+ */
+public abstract class NativeImageSpec {
+
+    /**
+     * Additional arguments passed to {@code native-image}.
+     */
+    public abstract ListProperty<String> getBuildArgs();
+
+    /**
+     * Whether to collect reachability metadata by running the provider's tests under the
+     * native-image tracing agent. Defaults to true.
+     */
+    public abstract Property<Boolean> getCollectMetadata();
+}
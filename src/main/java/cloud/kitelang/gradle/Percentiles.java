@@ -0,0 +1,38 @@
+package cloud.kitelang.gradle;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Nearest-rank percentiles of benchmark samples in milliseconds.
+ *
+ * @param p50     the median
+ * @param p95     the 95th percentile
+ * @param max     the slowest sample
+ * @param samples the samples in measurement order
+ */
+record Percentiles(long p50, long p95, long max, List<Long> samples) {
+
+    static Percentiles of(List<Long> samples) {
+        if (samples.isEmpty()) {
+            throw new IllegalArgumentException("No samples");
+        }
+        var sorted = samples.stream().sorted().toList();
+        return new Percentiles(rank(sorted, 0.50), rank(sorted, 0.95), sorted.getLast(), List.copyOf(samples));
+    }
+
+    private static long rank(List<Long> sorted, double percentile) {
+        var index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    Map<String, Object> toJson() {
+        var fields = new LinkedHashMap<String, Object>();
+        fields.put("p50Millis", p50);
+        fields.put("p95Millis", p95);
+        fields.put("maxMillis", max);
+        fields.put("samplesMillis", samples);
+        return fields;
+    }
+}
@@ -0,0 +1,255 @@
+package cloud.kitelang.gradle;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON writer and reader for the provider.json files and reports of the plugin.
+ * <p>
+ * Supports strings, numbers, booleans, lists and maps, preserving map insertion order.
+ * Output is indented with four spaces and ends with a newline. Parsed numbers are returned
+ * as {@link Long} when integral and {@link Double} otherwise.
+ */
+final class ProviderJson {
+
+    private static final String INDENT = "    ";
+
+    private ProviderJson() {
+    }
+
+    /**
+     * Start an object with the fields every provider.json carries.
+     */
+    static Map<String, Object> metadata(String name, String version, int protocolVersion) {
+        var fields = new LinkedHashMap<String, Object>();
+        fields.put("name", name);
+        fields.put("version", version);
+        fields.put("protocolVersion", protocolVersion);
+        return fields;
+    }
+
+    /**
+     * Render a value as JSON.
+     */
+    static String write(Object value) {
+        var out = new StringBuilder();
+        write(value, out, "");
+        return out.append('\n').toString();
+    }
+
+    private static void write(Object value, StringBuilder out, String indent) {
+        if (value instanceof Map<?, ?> map) {
+            writeEntries(map.entrySet().stream().toList(), out, indent, '{', '}', true);
+        } else if (value instanceof List<?> list) {
+            writeEntries(list, out, indent, '[', ']', false);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.append(value);
+        } else if (value == null) {
+            out.append("null");
+        } else {
+            writeString(value.toString(), out);
+        }
+    }
+
+    private static void writeEntries(List<?> items, StringBuilder out, String indent,
+                                     char open, char close, boolean isObject) {
+        if (items.isEmpty()) {
+            out.append(open).append(close);
+            return;
+        }
+        var innerIndent = indent + INDENT;
+        out.append(open).append('\n');
+        for (int i = 0; i < items.size(); i++) {
+            out.append(innerIndent);
+            if (isObject) {
+                var entry = (Map.Entry<?, ?>) items.get(i);
+                writeString(entry.getKey().toString(), out);
+                out.append(": ");
+                write(entry.getValue(), out, innerIndent);
+            } else {
+                write(items.get(i), out, innerIndent);
+            }
+            out.append(i < items.size() - 1 ? ",\n" : "\n");
+        }
+        out.append(indent).append(close);
+    }
+
+    private static void writeString(String value, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Parse a JSON document, e.g. a report written by {@link #write(Object)}.
+     *
+     * @throws IllegalArgumentException if the document is malformed
+     */
+    static Object parse(String json) {
+        var reader = new Reader(json);
+        var value = reader.value();
+        reader.skipWhitespace();
+        if (reader.pos < json.length()) {
+            throw reader.error("Unexpected trailing content");
+        }
+        return value;
+    }
+
+    private static final class Reader {
+
+        private final String json;
+        private int pos;
+
+        Reader(String json) {
+            this.json = json;
+        }
+
+        Object value() {
+            skipWhitespace();
+            if (pos >= json.length()) throw error("Unexpected end of input");
+            var c = json.charAt(pos);
+            return switch (c) {
+                case '{' -> object();
+                case '[' -> array();
+                case '"' -> string();
+                case 't' -> literal("true", Boolean.TRUE);
+                case 'f' -> literal("false", Boolean.FALSE);
+                case 'n' -> literal("null", null);
+                default -> number();
+            };
+        }
+
+        private Map<String, Object> object() {
+            var map = new LinkedHashMap<String, Object>();
+            pos++;
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return map;
+            }
+            while (true) {
+                skipWhitespace();
+                if (peek() != '"') throw error("Expected a string key");
+                var key = string();
+                skipWhitespace();
+                expect(':');
+                map.put(key, value());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect('}');
+                    return map;
+                }
+            }
+        }
+
+        private List<Object> array() {
+            var list = new ArrayList<Object>();
+            pos++;
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return list;
+            }
+            while (true) {
+                list.add(value());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    return list;
+                }
+            }
+        }
+
+        private String string() {
+            var out = new StringBuilder();
+            pos++;
+            while (pos < json.length()) {
+                var c = json.charAt(pos++);
+                if (c == '"') return out.toString();
+                if (c != '\\') {
+                    out.append(c);
+                    continue;
+                }
+                if (pos >= json.length()) break;
+                var escaped = json.charAt(pos++);
+                switch (escaped) {
+                    case 'n' -> out.append('\n');
+                    case 'r' -> out.append('\r');
+                    case 't' -> out.append('\t');
+                    case 'b' -> out.append('\b');
+                    case 'f' -> out.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > json.length()) throw error("Truncated unicode escape");
+                        out.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> out.append(escaped);
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private Number number() {
+            var start = pos;
+            while (pos < json.length() && "+-0123456789.eE".indexOf(json.charAt(pos)) >= 0) {
+                pos++;
+            }
+            var text = json.substring(start, pos);
+            try {
+                if (text.contains(".") || text.contains("e") || text.contains("E")) {
+                    return Double.parseDouble(text);
+                }
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                throw error("Invalid value");
+            }
+        }
+
+        private Object literal(String text, Object value) {
+            if (!json.startsWith(text, pos)) throw error("Invalid value");
+            pos += text.length();
+            return value;
+        }
+
+        private char peek() {
+            return pos < json.length() ? json.charAt(pos) : 0;
+        }
+
+        private void expect(char c) {
+            if (peek() != c) throw error("Expected '" + c + "'");
+            pos++;
+        }
+
+        void skipWhitespace() {
+            while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at offset " + pos);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package cloud.kitelang.gradle;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+/**
+ * A provider process started by a build task, e.g. for a training run or a benchmark.
+ * <p>
+ * The provider is considered ready once a line of its standard output matches the ready
+ * pattern, by default the handshake line the engine waits for. Standard error is inherited.
+ */
+final class ProviderProcess implements AutoCloseable {
+
+    /**
+     * Default pattern of the handshake line printed once the provider's gRPC server is up,
+     * e.g. {@code 1|1|tcp|127.0.0.1:50051|grpc}.
+     */
+    static final String DEFAULT_READY_PATTERN = "^\\d+\\|\\d+\\|(tcp|unix)\\|.+";
+
+    private static final Duration STOP_GRACE_PERIOD = Duration.ofSeconds(10);
+
+    private final Process process;
+    private final long startNanos;
+    private final CompletableFuture<String> readyLine = new CompletableFuture<>();
+
+    private ProviderProcess(Process process, long startNanos, Pattern readyPattern) {
+        this.process = process;
+        this.startNanos = startNanos;
+
+        var reader = new Thread(() -> readStdout(readyPattern), "provider-stdout-" + process.pid());
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Start a provider process.
+     *
+     * @param command      the command line
+     * @param workingDir   the working directory
+     * @param environment  additional environment variables
+     * @param readyPattern regular expression matched against each stdout line
+     */
+    static ProviderProcess start(List<String> command, File workingDir, Map<String, String> environment,
+                                 String readyPattern) throws IOException {
+        var builder = new ProcessBuilder(command)
+                .directory(workingDir)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .redirectInput(ProcessBuilder.Redirect.PIPE);
+        builder.environment().putAll(environment);
+
+        var startNanos = System.nanoTime();
+        return new ProviderProcess(builder.start(), startNanos, Pattern.compile(readyPattern));
+    }
+
+    private void readStdout(Pattern readyPattern) {
+        try (var reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!readyLine.isDone() && readyPattern.matcher(line).find()) {
+                    readyLine.complete(line);
+                }
+            }
+        } catch (IOException e) {
+            readyLine.completeExceptionally(e);
+        }
+        readyLine.completeExceptionally(new IOException(
+                "Provider exited before printing its ready line (exit code " + waitForExitCode() + ")"));
+    }
+
+    private int waitForExitCode() {
+        try {
+            return process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    /**
+     * Wait until the provider is ready.
+     *
+     * @return the time from process start to the ready line
+     * @throws IOException if the provider exits or doesn't become ready within the timeout
+     */
+    Duration awaitReady(Duration timeout) throws IOException {
+        try {
+            readyLine.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return Duration.ofNanos(System.nanoTime() - startNanos);
+        } catch (TimeoutException e) {
+            throw new IOException("Provider did not print its ready line within " + timeout.toSeconds() + "s", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the provider", e);
+        }
+    }
+
+    /**
+     * The line that matched the ready pattern. Only valid after {@link #awaitReady(Duration)}.
+     */
+    String readyLine() {
+        return readyLine.getNow(null);
+    }
+
+    /**
+     * The operating system process id.
+     */
+    long pid() {
+        return process.pid();
+    }
+
+    /**
+     * Wait for the provider to exit by itself.
+     *
+     * @return whether it exited within the timeout
+     */
+    boolean awaitExit(Duration timeout) throws IOException {
+        try {
+            return process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the provider to exit", e);
+        }
+    }
+
+    /**
+     * Stop the provider gracefully (SIGTERM, so shutdown hooks and exit-time dumps run),
+     * killing it if it doesn't exit within the grace period.
+     *
+     * @return the exit code
+     */
+    int stop() throws IOException {
+        process.destroy();
+        try {
+            if (!process.waitFor(STOP_GRACE_PERIOD.toMillis(), TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("Provider did not exit within " + STOP_GRACE_PERIOD.toSeconds() + "s and was killed");
+            }
+            return process.exitValue();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while stopping the provider", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (process.isAlive()) {
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.jvm.toolchain.JavaLauncher;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Base class of the tasks creating a {@link StartupArchive} with a training run of the provider JAR.
+ * <p>
+ * A training run starts the provider with {@code KITE_PROVIDER_TRAINING=true} in its environment,
+ * waits until it printed its ready line and stops it gracefully, so exit-time dumps are written.
+ * The archive is rebuilt whenever the provider JAR or the JDK changes.
+ */
+public abstract class ProviderTrainingTask extends DefaultTask {
+
+    /**
+     * The provider JAR to train.
+     */
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getProviderJar();
+
+    /**
+     * JARs staged next to the provider JAR: those of its {@code Class-Path} manifest attribute, or
+     * the classpath following it when a {@linkplain #getMainClass() main class} is set.
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getClasspath();
+
+    /**
+     * The JDK used for training. The archive is only valid for this exact JDK build.
+     */
+    @Nested
+    public abstract Property<JavaLauncher> getJavaLauncher();
+
+    /**
+     * Main class to run with the provider JAR and its classpath on {@code -cp}, in this order, like
+     * a Gradle start script does. If absent, the provider JAR is run with {@code -jar}.
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getMainClass();
+
+    /**
+     * JVM arguments of the launcher, also used for the training run.
+     */
+    @Input
+    public abstract ListProperty<String> getJvmArgs();
+
+    /**
+     * Regular expression matching the provider's ready line on stdout.
+     */
+    @Input
+    public abstract Property<String> getReadyPattern();
+
+    /**
+     * How long the training run may take to become ready.
+     */
+    @Internal
+    public abstract Property<Duration> getReadyTimeout();
+
+    /**
+     * The generated archive.
+     */
+    @OutputFile
+    public abstract RegularFileProperty getArchiveFile();
+
+    /**
+     * Copy the provider JAR and its classpath into the temporary directory with the fixed
+     * modification time the installed JARs get too.
+     */
+    protected Path stageProviderJar() throws IOException {
+        return StartupArchive.stageJars(getProviderJar().get().getAsFile().toPath(), getClasspath(), getTemporaryDir().toPath().resolve("lib"));
+    }
+
+    /**
+     * Build a {@code java} command line running the given staged JAR.
+     *
+     * @param archiveOptions JVM options controlling the archive, placed before the launcher's JVM arguments
+     */
+    protected List<String> javaCommand(List<String> archiveOptions, Path jar) {
+        var command = new ArrayList<String>();
+        command.add(getJavaLauncher().get().getExecutablePath().getAsFile().getAbsolutePath());
+        command.addAll(archiveOptions);
+        command.addAll(getJvmArgs().get());
+        if (getMainClass().isPresent()) {
+            var classpath = new StringJoiner(File.pathSeparator);
+            classpath.add(jar.toString());
+            getClasspath().forEach(entry -> classpath.add(jar.resolveSibling(entry.getName()).toString()));
+            command.add("-cp");
+            command.add(classpath.toString());
+            command.add(getMainClass().get());
+        } else {
+            command.add("-jar");
+            command.add(jar.toString());
+        }
+        return command;
+    }
+
+    /**
+     * Run the provider until it is ready, then stop it.
+     */
+    protected void train(List<String> archiveOptions, Path jar) throws IOException {
+        try (var provider = ProviderProcess.start(javaCommand(archiveOptions, jar), getTemporaryDir(),
+                Map.of("KITE_PROVIDER_TRAINING", "true"), getReadyPattern().get())) {
+            var startup = provider.awaitReady(getReadyTimeout().get());
+            getLogger().info("Training run ready after {} ms", startup.toMillis());
+            provider.stop();
+        }
+    }
+}
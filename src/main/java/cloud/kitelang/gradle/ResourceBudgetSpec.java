@@ -0,0 +1,35 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.provider.Property;
+
+/**
+ * Default resource budget of a provider process, for hosts running many providers side by side.
+ * <p>
+ * The budget is recorded in {@code provider.json} and baked into the generated launchers and the
+ * Unix start script of {@code installDist}, where the {@code KITE_PROVIDER_CPUS} and
+ * {@code KITE_PROVIDER_MEMORY} environment variables override it. The {@code directExec} command
+ * carries the options of this default budget.
+ * <p>
+ * Usage in build.gradle:
+ * <pre>
+ * kiteProvider {
+ *     budget {
+ *         cpus = 2
+ *         memory = '512m'
+ *     }
+ * }
+ * </pre>
+ */
+public abstract class ResourceBudgetSpec {
+
+    /**
+     * Number of CPUs the provider sizes its GC, JIT and thread pools for.
+     */
+    public abstract Property<Integer> getCpus();
+
+    /**
+     * Memory available to the whole provider JVM, e.g. {@code "512m"} or {@code "2g"}. The heap
+     * takes {@value GenerateLauncherScript#BUDGET_HEAP_PERCENTAGE}% of it.
+     */
+    public abstract Property<String> getMemory();
+}
@@ -0,0 +1,32 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+
+/**
+ * The custom Java runtime bundled by {@code installRuntimeDist}.
+ * <p>
+ * Usage in build.gradle:
+ * <pre>
+ * kiteProvider {
+ *     runtime {
+ *         modules.add('jdk.localedata')
+ *     }
+ * }
+ * </pre>
+ */
+public abstract class RuntimeImageSpec {
+
+    /**
+     * Modules added to the ones {@code jdeps} finds in the provider JAR, e.g. modules only
+     * loaded through services or reflection. Defaults to {@code jdk.crypto.ec}, needed for TLS
+     * connections to cloud APIs on JDKs that still ship it as a separate module.
+     */
+    public abstract ListProperty<String> getModules();
+
+    /**
+     * Value of the {@code jlink --compress} option. Defaults to {@code "zip-6"} on JDK 21+
+     * toolchains and to {@code "2"}, the equivalent of older {@code jlink} versions, otherwise.
+     */
+    public abstract Property<String> getCompression();
+}
@@ -0,0 +1,149 @@
+package cloud.kitelang.gradle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Scans Java source trees for a class extending ProviderServer or KiteProvider.
+ * <p>
+ * Directories are walked in parallel on the fork/join common pool. If several classes match, the
+ * first in name order is returned, like {@link MainClassDetector} does for compiled classes. Once
+ * a match is found, files and directories whose class names sort after it are skipped without
+ * being read. Only the beginning of each file is read, up to the class declaration or
+ * {@link #HEADER_LIMIT} bytes, and files larger than the configured limit are skipped.
+ */
+class SourceScanner {
+
+    /**
+     * Maximum number of bytes read from the start of a source file.
+     */
+    static final int HEADER_LIMIT = 64 * 1024;
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final MainClassIndex index;
+    private final long maxFileSize;
+    private final AtomicReference<String> match = new AtomicReference<>();
+
+    /**
+     * @param index       index used to skip unchanged files
+     * @param maxFileSize files larger than this many bytes are not read
+     */
+    SourceScanner(MainClassIndex index, long maxFileSize) {
+        this.index = index;
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * Scan a source root.
+     *
+     * @return the fully qualified name of the first provider class in name order, or null
+     */
+    String scan(Path sourceRoot) throws IOException {
+        try {
+            ForkJoinPool.commonPool().invoke(new DirectoryTask(sourceRoot, sourceRoot));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return match.get();
+    }
+
+    private final class DirectoryTask extends RecursiveAction {
+
+        private final Path baseDir;
+        private final Path dir;
+
+        DirectoryTask(Path baseDir, Path dir) {
+            this.baseDir = baseDir;
+            this.dir = dir;
+        }
+
+        @Override
+        protected void compute() {
+            var subTasks = new ArrayList<DirectoryTask>();
+            try (var stream = Files.list(dir)) {
+                for (Path path : (Iterable<Path>) stream::iterator) {
+                    var attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                    if (attrs.isDirectory()) {
+                        // Every class below the directory has its package as a prefix
+                        if (sortsAfterMatch(className(baseDir, path) + ".")) continue;
+
+                        var task = new DirectoryTask(baseDir, path);
+                        task.fork();
+                        subTasks.add(task);
+                    } else if (path.toString().endsWith(".java") && attrs.size() <= maxFileSize) {
+                        var className = className(baseDir, path);
+                        if (sortsAfterMatch(className)) continue;
+
+                        var result = index.resolve(path, attrs, SourceScanner::readHeader,
+                                bytes -> declaresProvider(bytes) ? className : "");
+                        if (!result.isEmpty()) {
+                            match.accumulateAndGet(result, (current, found) ->
+                                    current == null || found.compareTo(current) < 0 ? found : current);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            subTasks.forEach(DirectoryTask::join);
+        }
+    }
+
+    /**
+     * Whether a class name, or a package prefix of class names, sorts after the match found so far.
+     */
+    private boolean sortsAfterMatch(String name) {
+        var current = match.get();
+        return current != null && name.compareTo(current) > 0;
+    }
+
+    /**
+     * Read the start of a source file, stopping once the body of the type declaration named
+     * after the file has been opened.
+     */
+    static byte[] readHeader(Path file) throws IOException {
+        var fileName = file.getFileName().toString();
+        var declaration = "class " + fileName.substring(0, fileName.length() - ".java".length());
+
+        var buffer = new byte[HEADER_LIMIT];
+        var length = 0;
+        try (var in = Files.newInputStream(file)) {
+            while (length < HEADER_LIMIT) {
+                var read = in.read(buffer, length, Math.min(CHUNK_SIZE, HEADER_LIMIT - length));
+                if (read < 0) break;
+                length += read;
+
+                // Source is mostly ASCII, so a lenient decode is good enough to find the declaration
+                var text = new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
+                var declarationStart = text.indexOf(declaration);
+                if (declarationStart >= 0 && text.indexOf('{', declarationStart) >= 0) break;
+            }
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    static boolean declaresProvider(byte[] bytes) {
+        var content = new String(bytes, StandardCharsets.UTF_8);
+        // Check for both ProviderServer and KiteProvider (which extends ProviderServer)
+        return content.contains("extends ProviderServer") || content.contains("extends KiteProvider");
+    }
+
+    private static String className(Path baseDir, Path file) {
+        // Extract class name from file path
+        var relativePath = baseDir.relativize(file).toString();
+        return relativePath
+                .replace(File.separator, ".")
+                .replace(".java", "");
+    }
+}
@@ -0,0 +1,116 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.DisableCachingByDefault;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+
+/**
+ * Assembles the provider fat JAR by splicing the application classes into a copy of the
+ * pre-merged dependency layer built by {@link BuildDependencyLayer}.
+ * <p>
+ * The layer is copied as-is and opened as a zip file system, so its entries are carried over
+ * without being decompressed or recompressed; only the application entries are written.
+ */
+@DisableCachingByDefault(because = "Splicing is cheaper than storing the fat JAR in the build cache")
+public abstract class SpliceProviderJar extends DefaultTask {
+
+    /**
+     * The pre-merged dependency layer.
+     */
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getDependencyLayer();
+
+    /**
+     * Compiled application classes and resources. They take precedence over dependency entries.
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getApplicationClasses();
+
+    /**
+     * Value of the {@code Main-Class} manifest attribute.
+     */
+    @Input
+    public abstract Property<String> getMainClass();
+
+    /**
+     * Value of the {@code Class-Path} manifest attribute, if any.
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getManifestClassPath();
+
+    /**
+     * The assembled provider JAR.
+     */
+    @OutputFile
+    public abstract RegularFileProperty getArchiveFile();
+
+    @TaskAction
+    public void splice() {
+        var archive = getArchiveFile().get().getAsFile().toPath();
+        try {
+            Files.copy(getDependencyLayer().get().getAsFile().toPath(), archive, StandardCopyOption.REPLACE_EXISTING);
+
+            try (var jar = FileSystems.newFileSystem(archive)) {
+                var attributes = new LinkedHashMap<String, String>();
+                attributes.put("Main-Class", getMainClass().get());
+                if (getManifestClassPath().isPresent()) {
+                    attributes.put("Class-Path", getManifestClassPath().get());
+                }
+                Files.write(jar.getPath(JarMerging.MANIFEST), JarMerging.manifest(attributes));
+
+                for (File root : getApplicationClasses()) {
+                    if (root.isDirectory()) {
+                        addDirectory(root.toPath(), jar);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to assemble " + archive, e);
+        }
+    }
+
+    private static void addDirectory(Path dir, FileSystem jar) throws IOException {
+        try (var stream = Files.walk(dir)) {
+            for (Path path : stream.filter(Files::isRegularFile).toList()) {
+                var entryName = dir.relativize(path).toString().replace(File.separatorChar, '/');
+                if (JarMerging.isExcluded(entryName)) continue;
+
+                var target = jar.getPath(entryName);
+                if (target.getParent() != null) {
+                    Files.createDirectories(target.getParent());
+                }
+
+                var content = Files.readAllBytes(path);
+                if (JarMerging.isServiceFile(entryName) && Files.exists(target)) {
+                    var merging = new JarMerging();
+                    merging.addServiceFile(entryName, content);
+                    merging.addServiceFile(entryName, Files.readAllBytes(target));
+                    content = merging.mergedServiceFiles().get(entryName);
+                }
+                Files.write(target, content);
+            }
+        }
+    }
+}
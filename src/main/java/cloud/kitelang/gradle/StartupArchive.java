@@ -0,0 +1,86 @@
+package cloud.kitelang.gradle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Kind of class archive shipped next to the provider JAR to speed up JVM startup.
+ * <p>
+ * Both kinds are only accepted by the JVM if the JARs on the classpath have the modification time
+ * seen during training, so the training copies and the installed JARs all get {@link #JAR_TIMESTAMP}.
+ */
+enum StartupArchive {
+
+    /**
+     * An AppCDS archive of the classes loaded during training.
+     */
+    CDS("provider.jsa", "-XX:SharedArchiveFile="),
+
+    /**
+     * A JDK AOT cache (JDK 24+) of the classes loaded and linked during training, plus
+     * method profiles on newer JDKs.
+     */
+    AOT("provider.aot", "-XX:AOTCache=");
+
+    /**
+     * First JDK release supporting {@code -XX:AOTCache}.
+     */
+    static final int AOT_MIN_JAVA_VERSION = 24;
+
+    /**
+     * Modification time given to the provider JAR for training and in the distributions.
+     */
+    static final FileTime JAR_TIMESTAMP = FileTime.fromMillis(318211200000L); // 1980-02-01T00:00:00Z
+
+    private final String fileName;
+    private final String option;
+
+    StartupArchive(String fileName, String option) {
+        this.fileName = fileName;
+        this.option = option;
+    }
+
+    /**
+     * File name of the archive in {@code lib/}.
+     */
+    String fileName() {
+        return fileName;
+    }
+
+    /**
+     * The JVM option using the archive at the given path.
+     */
+    String jvmOption(String archivePath) {
+        return option + archivePath;
+    }
+
+    /**
+     * Copy a provider JAR into a directory with {@link #JAR_TIMESTAMP} as modification time.
+     *
+     * @return the copy
+     */
+    static Path stageJar(Path jar, Path dir) throws IOException {
+        var copy = dir.resolve(jar.getFileName());
+        Files.createDirectories(dir);
+        Files.copy(jar, copy, StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(copy, JAR_TIMESTAMP);
+        return copy;
+    }
+
+    /**
+     * Copy a provider JAR and the JARs on its {@code Class-Path} into a directory with
+     * {@link #JAR_TIMESTAMP} as modification time.
+     *
+     * @return the copy of the provider JAR
+     */
+    static Path stageJars(Path jar, Iterable<File> classpath, Path dir) throws IOException {
+        for (var entry : classpath) {
+            stageJar(entry.toPath(), dir);
+        }
+        return stageJar(jar, dir);
+    }
+}
@@ -0,0 +1,46 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.provider.Property;
+
+import java.time.Duration;
+
+/**
+ * Startup optimizations applied to the provider distributions.
+ * <p>
+ * Usage in build.gradle:
+ * <pre>
+ * kiteProvider {
+ *     startup {
+ *         cds = true
+ *     }
+ * }
+ * </pre>
+ */
+public abstract class StartupSpec {
+
+    /**
+     * Whether to generate an AppCDS archive with a training run of the provider JAR, and ship
+     * it with the minimized distribution. Defaults to false.
+     */
+    public abstract Property<Boolean> getCds();
+
+    /**
+     * Whether to generate a JDK AOT cache with a training run of the provider JAR, and ship it
+     * with the minimized and shadow distributions. Requires a JDK 24+ toolchain; with older
+     * toolchains an AppCDS archive is generated instead. Takes precedence over {@link #getCds()}.
+     * Defaults to false.
+     */
+    public abstract Property<Boolean> getAotCache();
+
+    /**
+     * Regular expression matched against each line of the provider's standard output to detect
+     * that it is ready to serve. Defaults to the handshake line, e.g.
+     * {@code 1|1|tcp|127.0.0.1:50051|grpc}.
+     */
+    public abstract Property<String> getReadyPattern();
+
+    /**
+     * How long the provider may take to become ready in training, checkpoint and benchmark runs. Defaults to 60 seconds.
+     */
+    public abstract Property<Duration> getTrainingTimeout();
+}
@@ -0,0 +1,232 @@
+package cloud.kitelang.gradle;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a zip archive from entries that have already been compressed.
+ * <p>
+ * {@link java.util.zip.ZipOutputStream} always compresses on the calling thread; this writer
+ * instead takes the output of {@link #compress(String, byte[], int)}, which can run on any
+ * thread, so entries can be deflated in parallel and written in order. ZIP64 end records are
+ * written when the archive has more than 65535 entries or grows past 4 GiB.
+ */
+final class ZipArchiveWriter implements Closeable {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final int UTF8_FLAG = 0x0800;
+    private static final int VERSION = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final long MAX_32 = 0xFFFFFFFFL;
+    private static final int MAX_16 = 0xFFFF;
+
+    /**
+     * DOS date for 1980-02-01, the fixed timestamp used for every entry.
+     */
+    private static final int DOS_DATE = (2 << 5) | 1;
+    private static final int DOS_TIME = 0;
+
+    /**
+     * An entry ready to be written.
+     *
+     * @param name           entry name, directories end with '/'
+     * @param method         compression method, stored or deflated
+     * @param crc            CRC-32 of the uncompressed data
+     * @param size           uncompressed size
+     * @param compressedData the data as it is written to the archive
+     */
+    record CompressedEntry(String name, int method, long crc, long size, byte[] compressedData) {
+    }
+
+    private record WrittenEntry(byte[] name, int method, long crc, long size, long compressedSize, long offset) {
+    }
+
+    private final CountingOutputStream out;
+    private final List<WrittenEntry> written = new ArrayList<>();
+
+    ZipArchiveWriter(OutputStream out) {
+        this.out = new CountingOutputStream(new BufferedOutputStream(out, 1 << 16));
+    }
+
+    /**
+     * Compress the content of an entry. Safe to call concurrently.
+     * Content that does not shrink when deflated is stored instead.
+     */
+    static CompressedEntry compress(String name, byte[] content, int level) {
+        var crc = new CRC32();
+        crc.update(content);
+        if (content.length == 0) {
+            return new CompressedEntry(name, STORED, crc.getValue(), 0, content);
+        }
+
+        var deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            var compressed = new ByteArrayOutputStream(Math.max(64, content.length / 2));
+            var buffer = new byte[Math.min(64 * 1024, content.length + 64)];
+            while (!deflater.finished()) {
+                var length = deflater.deflate(buffer);
+                compressed.write(buffer, 0, length);
+            }
+            if (compressed.size() >= content.length) {
+                return new CompressedEntry(name, STORED, crc.getValue(), content.length, content);
+            }
+            return new CompressedEntry(name, DEFLATED, crc.getValue(), content.length, compressed.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Append an entry to the archive.
+     */
+    void write(CompressedEntry entry) throws IOException {
+        if (entry.size() >= MAX_32 || entry.compressedData().length >= MAX_32) {
+            throw new IOException("Entry too large: " + entry.name());
+        }
+        var name = entry.name().getBytes(StandardCharsets.UTF_8);
+        var offset = out.count;
+
+        writeInt(LOCAL_HEADER);
+        writeShort(VERSION);
+        writeShort(UTF8_FLAG);
+        writeShort(entry.method());
+        writeShort(DOS_TIME);
+        writeShort(DOS_DATE);
+        writeInt(entry.crc());
+        writeInt(entry.compressedData().length);
+        writeInt(entry.size());
+        writeShort(name.length);
+        writeShort(0);
+        out.write(name);
+        out.write(entry.compressedData());
+
+        // Only the metadata is kept for the central directory
+        written.add(new WrittenEntry(name, entry.method(), entry.crc(), entry.size(),
+                entry.compressedData().length, offset));
+    }
+
+    /**
+     * Write the central directory and end records, then close the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        var centralDirectoryOffset = out.count;
+        for (WrittenEntry entry : written) {
+            var zip64Offset = entry.offset() >= MAX_32;
+
+            writeInt(CENTRAL_HEADER);
+            writeShort(zip64Offset ? VERSION_ZIP64 : VERSION);
+            writeShort(zip64Offset ? VERSION_ZIP64 : VERSION);
+            writeShort(UTF8_FLAG);
+            writeShort(entry.method());
+            writeShort(DOS_TIME);
+            writeShort(DOS_DATE);
+            writeInt(entry.crc());
+            writeInt(entry.compressedSize());
+            writeInt(entry.size());
+            writeShort(entry.name().length);
+            writeShort(zip64Offset ? 12 : 0);
+            writeShort(0); // comment length
+            writeShort(0); // disk number
+            writeShort(0); // internal attributes
+            writeInt(0);   // external attributes
+            writeInt(zip64Offset ? MAX_32 : entry.offset());
+            out.write(entry.name());
+            if (zip64Offset) {
+                writeShort(0x0001);
+                writeShort(8);
+                writeLong(entry.offset());
+            }
+        }
+        var centralDirectorySize = out.count - centralDirectoryOffset;
+
+        var zip64 = written.size() >= MAX_16 || centralDirectoryOffset >= MAX_32 || centralDirectorySize >= MAX_32;
+        if (zip64) {
+            var zip64EndOffset = out.count;
+            writeInt(ZIP64_END_OF_CENTRAL_DIRECTORY);
+            writeLong(44);
+            writeShort(VERSION_ZIP64);
+            writeShort(VERSION_ZIP64);
+            writeInt(0);
+            writeInt(0);
+            writeLong(written.size());
+            writeLong(written.size());
+            writeLong(centralDirectorySize);
+            writeLong(centralDirectoryOffset);
+
+            writeInt(ZIP64_LOCATOR);
+            writeInt(0);
+            writeLong(zip64EndOffset);
+            writeInt(1);
+        }
+
+        writeInt(END_OF_CENTRAL_DIRECTORY);
+        writeShort(0);
+        writeShort(0);
+        writeShort(zip64 ? MAX_16 : written.size());
+        writeShort(zip64 ? MAX_16 : written.size());
+        writeInt(zip64 ? MAX_32 : centralDirectorySize);
+        writeInt(zip64 ? MAX_32 : centralDirectoryOffset);
+        writeShort(0);
+        out.close();
+    }
+
+    private void writeShort(int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+
+    private void writeInt(long value) throws IOException {
+        writeShort((int) (value & 0xFFFF));
+        writeShort((int) ((value >>> 16) & 0xFFFF));
+    }
+
+    private void writeLong(long value) throws IOException {
+        writeInt(value & MAX_32);
+        writeInt(value >>> 32);
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private final OutputStream delegate;
+        private long count;
+
+        CountingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BenchmarkProviderFootprintTest {
+
+    @Test
+    void parsesSizesWithJvmSuffixes() {
+        assertEquals(4096, BenchmarkProviderFootprint.parseSize("4096"));
+        assertEquals(512L * 1024, BenchmarkProviderFootprint.parseSize("512k"));
+        assertEquals(256L * 1024 * 1024, BenchmarkProviderFootprint.parseSize("256m"));
+        assertEquals(2L * 1024 * 1024 * 1024, BenchmarkProviderFootprint.parseSize(" 2G "));
+    }
+
+    @Test
+    void rejectsInvalidSizes() {
+        for (var size : new String[]{"", "m", "256mb", "1.5g", "lots"}) {
+            assertThrows(IllegalArgumentException.class, () -> BenchmarkProviderFootprint.parseSize(size), size);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BuildRuntimeImageTest {
+
+    @Test
+    void parsesTheModuleList() throws IOException {
+        assertEquals(List.of("java.base", "java.net.http", "jdk.crypto.ec"),
+                BuildRuntimeImage.parseModuleDeps("java.base,java.net.http,jdk.crypto.ec\n"));
+        assertEquals(List.of(), BuildRuntimeImage.parseModuleDeps("\n"));
+    }
+
+    @Test
+    void rejectsOutputOtherThanModuleNames() {
+        assertThrows(IOException.class, () -> BuildRuntimeImage.parseModuleDeps("Warning: split package: javax.annotation\njava.base"));
+        assertThrows(IOException.class, () -> BuildRuntimeImage.parseModuleDeps("java.base,,java.sql"));
+    }
+
+    @Test
+    void compressionDefaultMatchesTheJlinkVersion() {
+        assertEquals("2", BuildRuntimeImage.defaultCompression(17));
+        assertEquals("zip-6", BuildRuntimeImage.defaultCompression(21));
+        assertEquals("zip-6", BuildRuntimeImage.defaultCompression(25));
+    }
+}
@@ -0,0 +1,68 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassFileHeaderTest {
+
+    static class Sample extends ArrayList<String> {
+        // Long and double constants occupy two constant pool slots
+        static final long LONG_CONSTANT = 1234567890123L;
+        static final double DOUBLE_CONSTANT = 0.5;
+        static final String STRING_CONSTANT = "constant";
+    }
+
+    abstract static class AbstractSample {
+    }
+
+    interface InterfaceSample {
+    }
+
+    @Test
+    void readsClassAndSuperclassPastEveryConstantPoolEntry() throws IOException {
+        var header = ClassFileHeader.parse(classBytes(Sample.class));
+
+        assertEquals("cloud/kitelang/gradle/ClassFileHeaderTest$Sample", header.className());
+        assertEquals("java/util/ArrayList", header.superClassName());
+        assertEquals("cloud.kitelang.gradle.ClassFileHeaderTest$Sample", header.binaryName());
+        assertTrue(header.isConcrete());
+    }
+
+    @Test
+    void abstractClassesAndInterfacesAreNotConcrete() throws IOException {
+        assertFalse(ClassFileHeader.parse(classBytes(AbstractSample.class)).isConcrete());
+        assertFalse(ClassFileHeader.parse(classBytes(InterfaceSample.class)).isConcrete());
+    }
+
+    @Test
+    void objectHasNoSuperclass() throws IOException {
+        var header = ClassFileHeader.parse(classBytes(Object.class));
+
+        assertEquals("java/lang/Object", header.className());
+        assertNull(header.superClassName());
+    }
+
+    @Test
+    void rejectsInvalidAndTruncatedClassFiles() throws IOException {
+        assertThrows(IOException.class, () -> ClassFileHeader.parse("not a class file".getBytes()));
+
+        var bytes = classBytes(Sample.class);
+        assertThrows(IOException.class, () -> ClassFileHeader.parse(Arrays.copyOf(bytes, bytes.length / 2)));
+    }
+
+    private static byte[] classBytes(Class<?> type) throws IOException {
+        var resource = type.getName().substring(type.getName().lastIndexOf('.') + 1) + ".class";
+        try (var in = type.getResourceAsStream(resource)) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GenerateLauncherScriptTest {
+
+    @Test
+    void plainArgumentsAreLeftUnquoted() {
+        assertEquals("-Xmx512m", GenerateLauncherScript.quote("-Xmx512m"));
+        assertEquals("--add-opens=java.base/java.nio=ALL-UNNAMED", GenerateLauncherScript.quote("--add-opens=java.base/java.nio=ALL-UNNAMED"));
+        assertEquals("-XX:MaxRAMPercentage=50.0", GenerateLauncherScript.quote("-XX:MaxRAMPercentage=50.0"));
+    }
+
+    @Test
+    void otherArgumentsAreSingleQuoted() {
+        assertEquals("'-Dname=with space'", GenerateLauncherScript.quote("-Dname=with space"));
+        assertEquals("'-Dname=it'\\''s'", GenerateLauncherScript.quote("-Dname=it's"));
+        assertEquals("'$HOME'", GenerateLauncherScript.quote("$HOME"));
+    }
+
+    @Test
+    void quotedArgumentsSurviveTheShell() throws IOException, InterruptedException {
+        for (var arg : List.of("-Dname=with space", "-Dname=it's", "$HOME `id` \"x\" \\ * ?", "-Dempty=")) {
+            var process = new ProcessBuilder("sh", "-c", "printf %s " + GenerateLauncherScript.quote(arg))
+                    .redirectErrorStream(true)
+                    .start();
+            var output = new String(process.getInputStream().readAllBytes());
+            assertEquals(0, process.waitFor());
+            assertEquals(arg, output);
+        }
+    }
+
+    @Test
+    void budgetScriptTranslatesTheEnvironment() throws IOException, InterruptedException {
+        var script = GenerateLauncherScript.budgetScript(2, "512m") + "printf %s \"$BUDGET_OPTS\"\n";
+
+        assertEquals("-XX:ActiveProcessorCount=2 -Dio.netty.eventLoopThreads=2 -Dkite.provider.cpus=2"
+                + " -XX:MaxRAM=512m -XX:MaxRAMPercentage=75 -Dkite.provider.memory=512m", sh(script, Map.of()));
+        assertEquals(String.join(" ", GenerateLauncherScript.budgetOptions(4, "1g")),
+                sh(script, Map.of("KITE_PROVIDER_CPUS", "4", "KITE_PROVIDER_MEMORY", "1g")));
+        assertEquals(" -XX:MaxRAM=512m -XX:MaxRAMPercentage=75 -Dkite.provider.memory=512m",
+                sh(script, Map.of("KITE_PROVIDER_CPUS", "two")), "invalid values are ignored");
+        assertEquals("", sh(GenerateLauncherScript.budgetScript(null, null) + "printf %s \"$BUDGET_OPTS\"\n", Map.of()));
+    }
+
+    @Test
+    void budgetOptionsRejectValuesTheLauncherWouldIgnore() {
+        assertEquals(List.of(), GenerateLauncherScript.budgetOptions(null, null));
+        assertThrows(IllegalArgumentException.class, () -> GenerateLauncherScript.budgetOptions(0, null));
+        assertThrows(IllegalArgumentException.class, () -> GenerateLauncherScript.budgetOptions(null, "512mb"));
+    }
+
+    private static String sh(String script, Map<String, String> environment) throws IOException, InterruptedException {
+        var builder = new ProcessBuilder("sh", "-c", script).redirectError(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().keySet().removeIf(name -> name.startsWith("KITE_PROVIDER_"));
+        builder.environment().putAll(environment);
+        var process = builder.start();
+        var output = new String(process.getInputStream().readAllBytes());
+        assertEquals(0, process.waitFor());
+        return output;
+    }
+}
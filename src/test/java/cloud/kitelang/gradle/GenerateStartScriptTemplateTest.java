@@ -0,0 +1,33 @@
+package cloud.kitelang.gradle;
+
+import groovy.text.SimpleTemplateEngine;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GenerateStartScriptTemplateTest {
+
+    @Test
+    void escapedShellCodeRendersUnchanged() throws Exception {
+        var budgetScript = GenerateLauncherScript.budgetScript(2, "512m");
+
+        var rendered = new SimpleTemplateEngine().createTemplate(GenerateStartScriptTemplate.escape(budgetScript))
+                .make(new HashMap<>())
+                .toString();
+
+        assertEquals(budgetScript, rendered);
+    }
+
+    @Test
+    void templateHasTheBudgetScriptInPlaceOfThePlaceholder() throws IOException {
+        var template = GenerateStartScriptTemplate.template("KITE_PROVIDER_CPUS=\"${KITE_PROVIDER_CPUS:-2}\"\n");
+
+        assertFalse(template.contains("@budgetScript@"));
+        assertTrue(template.contains("KITE_PROVIDER_CPUS=\"\\${KITE_PROVIDER_CPUS:-2}\"\n"), "the budget script is escaped");
+    }
+}
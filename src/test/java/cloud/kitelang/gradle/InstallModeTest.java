@@ -0,0 +1,82 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstallModeTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parsesModesIgnoringCase() {
+        assertEquals(InstallMode.HARDLINK, InstallMode.parse(" Hardlink "));
+        assertEquals(InstallMode.COPY, InstallMode.parse("copy"));
+
+        var e = assertThrows(IllegalArgumentException.class, () -> InstallMode.parse("symlink"));
+        assertTrue(e.getMessage().contains("'copy', 'hardlink', 'reflink'"), e.getMessage());
+    }
+
+    @Test
+    void copiesAndSkipsAnUnchangedCopy() throws IOException {
+        var source = jar("dep.jar", "v1");
+        var target = dir.resolve("lib.jar");
+
+        assertTrue(InstallMode.COPY.install(source, target));
+        assertEquals("v1", Files.readString(target));
+        assertFalse(Files.isSameFile(source, target));
+
+        assertFalse(InstallMode.COPY.install(source, target), "an unchanged copy is kept");
+    }
+
+    @Test
+    void replacesAChangedCopy() throws IOException {
+        var source = jar("dep.jar", "v1");
+        var target = dir.resolve("lib.jar");
+        InstallMode.COPY.install(source, target);
+
+        Files.writeString(source, "v2");
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(target).toMillis() + 2000));
+
+        assertTrue(InstallMode.COPY.install(source, target));
+        assertEquals("v2", Files.readString(target));
+    }
+
+    @Test
+    void hardLinksAndSkipsTheSameFile() throws IOException {
+        var source = jar("dep.jar", "v1");
+        var target = dir.resolve("lib.jar");
+
+        assertTrue(InstallMode.HARDLINK.install(source, target));
+        assertTrue(Files.isSameFile(source, target));
+
+        assertFalse(InstallMode.HARDLINK.install(source, target));
+    }
+
+    @Test
+    void replacesAHardLinkWithoutWritingThroughIt() throws IOException {
+        var source = jar("dep.jar", "v1");
+        var stale = jar("stale.jar", "stale content");
+        var target = dir.resolve("lib.jar");
+        Files.createLink(target, stale);
+
+        assertTrue(InstallMode.COPY.install(source, target));
+
+        assertEquals("v1", Files.readString(target));
+        assertEquals("stale content", Files.readString(stale), "the linked file is left alone");
+    }
+
+    private Path jar(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content);
+    }
+}
@@ -0,0 +1,50 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JvmSpecTest {
+
+    @Test
+    void absoluteHeapSizesBecomeXmx() {
+        assertEquals("-Xmx512m", JvmSpec.heapOption("512m"));
+        assertEquals("-Xmx1g", JvmSpec.heapOption(" 1g "));
+    }
+
+    @Test
+    void heapSharesBecomeMaxRamPercentage() {
+        assertEquals("-XX:MaxRAMPercentage=50.0", JvmSpec.heapOption("50%"));
+        assertEquals("-XX:MaxRAMPercentage=12.5", JvmSpec.heapOption("12.5%"));
+    }
+
+    @Test
+    void collectorNamesAreCaseInsensitive() {
+        assertEquals("-XX:+UseSerialGC", JvmSpec.gcOption("serial"));
+        assertEquals("-XX:+UseParallelGC", JvmSpec.gcOption("Parallel"));
+        assertEquals("-XX:+UseG1GC", JvmSpec.gcOption("G1"));
+        assertEquals("-XX:+UseZGC", JvmSpec.gcOption("z"));
+        assertEquals("-XX:+UseZGC", JvmSpec.gcOption("zgc"));
+        assertEquals("-XX:+UseShenandoahGC", JvmSpec.gcOption(" shenandoah "));
+    }
+
+    @Test
+    void unknownCollectorsAreRejected() {
+        var e = assertThrows(IllegalArgumentException.class, () -> JvmSpec.gcOption("cms"));
+        assertTrue(e.getMessage().contains("'cms'"), e.getMessage());
+    }
+
+    @Test
+    void systemPropertiesBecomeDefinesInOrder() {
+        var properties = new LinkedHashMap<String, String>();
+        properties.put("b", "2");
+        properties.put("a", "with space");
+
+        assertEquals(List.of("-Db=2", "-Da=with space"), JvmSpec.systemPropertyOptions(properties));
+    }
+}
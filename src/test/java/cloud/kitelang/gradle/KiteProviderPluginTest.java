@@ -0,0 +1,25 @@
+package cloud.kitelang.gradle;
+
+import org.gradle.api.GradleException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KiteProviderPluginTest {
+
+    @Test
+    void joinsJmhJvmArgsWithSpaces() {
+        assertEquals("-XX:+UseSerialGC -Dname=value", KiteProviderPlugin.jmhJvmArgs(List.of("-XX:+UseSerialGC", "-Dname=value")));
+    }
+
+    @Test
+    void rejectsJmhJvmArgsJmhWouldSplit() {
+        var e = assertThrows(GradleException.class, () -> KiteProviderPlugin.jmhJvmArgs(List.of("-Dgreeting=hello world")));
+        assertTrue(e.getMessage().contains("'-Dgreeting=hello world'"), e.getMessage());
+        assertThrows(GradleException.class, () -> KiteProviderPlugin.jmhJvmArgs(List.of("-Dtab=a\tb")));
+    }
+}
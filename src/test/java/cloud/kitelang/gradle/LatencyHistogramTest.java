@@ -0,0 +1,63 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesUseTheNearestRank() {
+        var histogram = new LatencyHistogram();
+        for (long micros = 1000; micros >= 1; micros--) {
+            histogram.record(micros);
+        }
+
+        assertEquals(1000, histogram.count());
+        assertEquals(500, histogram.percentile(0.50));
+        assertEquals(900, histogram.percentile(0.90));
+        assertEquals(990, histogram.percentile(0.99));
+        assertEquals(999, histogram.percentile(0.999));
+        assertEquals(1000, histogram.percentile(0.9999));
+    }
+
+    @Test
+    void recordingAfterAQueryIsIncluded() {
+        var histogram = new LatencyHistogram();
+        histogram.record(10);
+        assertEquals(10, histogram.percentile(0.99));
+
+        histogram.record(20);
+        assertEquals(20, histogram.percentile(0.99));
+        assertEquals(10, histogram.percentile(0.50));
+    }
+
+    @Test
+    void emptyHistogramsReportZero() {
+        var json = new LatencyHistogram().toJson();
+
+        assertEquals(0L, json.get("p50Micros"));
+        assertEquals(0L, json.get("maxMicros"));
+        assertEquals(List.of(), json.get("distribution"));
+    }
+
+    @Test
+    void distributionCountsPowerOfTwoBucketsWithCumulativePercentiles() {
+        var histogram = new LatencyHistogram();
+        for (var micros : new long[]{1, 2, 3, 4, 100}) {
+            histogram.record(micros);
+        }
+
+        var json = histogram.toJson();
+
+        assertEquals(100L, json.get("maxMicros"));
+        assertEquals(List.of(
+                Map.of("upToMicros", 1L, "count", 1, "percentile", 20.0),
+                Map.of("upToMicros", 2L, "count", 1, "percentile", 40.0),
+                Map.of("upToMicros", 4L, "count", 2, "percentile", 80.0),
+                Map.of("upToMicros", 128L, "count", 1, "percentile", 100.0)), json.get("distribution"));
+    }
+}
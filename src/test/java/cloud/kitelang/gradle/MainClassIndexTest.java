@@ -0,0 +1,94 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MainClassIndexTest {
+
+    @TempDir
+    Path dir;
+
+    private final AtomicInteger scans = new AtomicInteger();
+
+    @Test
+    void savedResultsAreReusedAfterLoading() throws IOException {
+        var indexFile = dir.resolve("index/sources.index");
+        var source = write("Provider.java", "class Provider extends KiteProvider {}");
+
+        var index = MainClassIndex.load(indexFile);
+        assertEquals("Provider", resolve(index, source));
+        index.save(true);
+
+        var reloaded = MainClassIndex.load(indexFile);
+        assertEquals("Provider", resolve(reloaded, source));
+        assertEquals(1, scans.get(), "the reloaded index answers without scanning");
+    }
+
+    @Test
+    void touchedFilesWithUnchangedContentKeepTheirResult() throws IOException {
+        var source = write("Provider.java", "class Provider extends KiteProvider {}");
+        var index = MainClassIndex.load(null);
+        resolve(index, source);
+
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 60_000));
+        assertEquals("Provider", resolve(index, source));
+        assertEquals(1, scans.get());
+
+        Files.writeString(source, "class Provider {}");
+        assertEquals("", resolve(index, source));
+        assertEquals(2, scans.get());
+    }
+
+    @Test
+    void completeScansDropEntriesOfFilesNotVisited() throws IOException {
+        var indexFile = dir.resolve("sources.index");
+        var kept = write("Kept.java", "class Kept extends KiteProvider {}");
+        var removed = write("Removed.java", "class Removed extends KiteProvider {}");
+        var index = MainClassIndex.load(indexFile);
+        resolve(index, kept);
+        resolve(index, removed);
+        index.save(true);
+
+        var next = MainClassIndex.load(indexFile);
+        resolve(next, kept);
+        next.save(true);
+
+        var content = Files.readString(indexFile);
+        assertTrue(content.contains(kept.toAbsolutePath().toString()));
+        assertFalse(content.contains(removed.toAbsolutePath().toString()));
+    }
+
+    @Test
+    void corruptIndexesStartOutEmpty() throws IOException {
+        var indexFile = dir.resolve("sources.index");
+        Files.writeString(indexFile, "something else\n");
+        var source = write("Provider.java", "class Provider extends KiteProvider {}");
+
+        resolve(MainClassIndex.load(indexFile), source);
+        assertEquals(1, scans.get());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content);
+    }
+
+    private String resolve(MainClassIndex index, Path file) throws IOException {
+        var attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        return index.resolve(file, attrs, bytes -> {
+            scans.incrementAndGet();
+            var name = file.getFileName().toString().replace(".java", "");
+            return new String(bytes).contains("extends KiteProvider") ? name : "";
+        });
+    }
+}
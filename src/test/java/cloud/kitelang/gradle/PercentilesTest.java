@@ -0,0 +1,48 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PercentilesTest {
+
+    @Test
+    void usesTheNearestRank() {
+        var percentiles = Percentiles.of(List.of(50L, 10L, 40L, 20L, 30L));
+
+        assertEquals(30, percentiles.p50());
+        assertEquals(50, percentiles.p95());
+        assertEquals(50, percentiles.max());
+        assertEquals(List.of(50L, 10L, 40L, 20L, 30L), percentiles.samples(), "samples keep the measurement order");
+    }
+
+    @Test
+    void nearestRankOfTwentySamples() {
+        var samples = new ArrayList<Long>();
+        for (long i = 20; i >= 1; i--) {
+            samples.add(i);
+        }
+        var percentiles = Percentiles.of(samples);
+
+        assertEquals(10, percentiles.p50());
+        assertEquals(19, percentiles.p95());
+        assertEquals(20, percentiles.max());
+    }
+
+    @Test
+    void singleSampleIsEveryPercentile() {
+        var percentiles = Percentiles.of(List.of(7L));
+
+        assertEquals(7, percentiles.p50());
+        assertEquals(7, percentiles.p95());
+    }
+
+    @Test
+    void requiresSamples() {
+        assertThrows(IllegalArgumentException.class, () -> Percentiles.of(List.of()));
+    }
+}
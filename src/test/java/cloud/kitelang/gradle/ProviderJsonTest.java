@@ -0,0 +1,62 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProviderJsonTest {
+
+    @Test
+    void writesIndentedJsonInInsertionOrder() {
+        var metadata = ProviderJson.metadata("aws", "1.2.0", 1);
+        metadata.put("command", List.of("java", "-jar"));
+        metadata.put("labels", Map.of());
+
+        assertEquals("""
+                {
+                    "name": "aws",
+                    "version": "1.2.0",
+                    "protocolVersion": 1,
+                    "command": [
+                        "java",
+                        "-jar"
+                    ],
+                    "labels": {}
+                }
+                """, ProviderJson.write(metadata));
+    }
+
+    @Test
+    void parsesWhatItWrites() {
+        var value = new LinkedHashMap<String, Object>();
+        value.put("string", "quote \" backslash \\ newline \n tab \t control \u0001 unicode é");
+        value.put("integer", 42L);
+        value.put("negative", -7L);
+        value.put("decimal", 1.5);
+        value.put("true", true);
+        value.put("false", false);
+        value.put("null", null);
+        value.put("list", List.of(1L, "two", List.of(), Map.of("nested", 3L)));
+        value.put("empty", List.of());
+
+        assertEquals(value, ProviderJson.parse(ProviderJson.write(value)));
+    }
+
+    @Test
+    void parsesNumbersAsLongWhenIntegral() {
+        assertEquals(Arrays.asList(1L, 2.5, -3L, 1.0E3), ProviderJson.parse("[1, 2.5, -3, 1e3]"));
+    }
+
+    @Test
+    void rejectsMalformedDocuments() {
+        for (var json : List.of("", "{", "{\"a\" 1}", "[1,]", "\"unterminated", "{} trailing", "nope")) {
+            assertThrows(IllegalArgumentException.class, () -> ProviderJson.parse(json), json);
+        }
+    }
+}
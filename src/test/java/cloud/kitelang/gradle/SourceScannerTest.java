@@ -0,0 +1,56 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SourceScannerTest {
+
+    @TempDir
+    Path sourceRoot;
+
+    @Test
+    void picksTheFirstProviderInNameOrder() throws IOException {
+        write("com/zeta/ZetaProvider.java", "package com.zeta; public class ZetaProvider extends KiteProvider {}");
+        write("com/alpha/sub/AlphaProvider.java", "package com.alpha.sub; public class AlphaProvider extends ProviderServer {}");
+        write("com/alpha/Helper.java", "package com.alpha; public class Helper {}");
+        write("com/beta/BetaProvider.java", "package com.beta; public class BetaProvider extends KiteProvider {}");
+
+        for (int i = 0; i < 20; i++) {
+            var scanner = new SourceScanner(MainClassIndex.load(null), Long.MAX_VALUE);
+            assertEquals("com.alpha.sub.AlphaProvider", scanner.scan(sourceRoot));
+        }
+    }
+
+    @Test
+    void skipsFilesLargerThanTheLimit() throws IOException {
+        write("com/example/LargeProvider.java", "package com.example; public class LargeProvider extends KiteProvider {}"
+                + " ".repeat(1000));
+
+        assertNull(new SourceScanner(MainClassIndex.load(null), 1000).scan(sourceRoot));
+    }
+
+    @Test
+    void readsHeadersOnlyUpToTheTypeDeclaration() throws IOException {
+        var body = "// filler\n".repeat(SourceScanner.HEADER_LIMIT / 5);
+        var file = write("com/example/Provider.java", "package com.example;\npublic class Provider extends KiteProvider {\n" + body + "}");
+
+        var header = SourceScanner.readHeader(file);
+
+        assertTrue(header.length < Files.size(file), "the body is not read");
+        assertTrue(SourceScanner.declaresProvider(header));
+    }
+
+    private Path write(String path, String content) throws IOException {
+        var file = sourceRoot.resolve(path);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+}
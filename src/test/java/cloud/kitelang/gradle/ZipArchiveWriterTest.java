@@ -0,0 +1,80 @@
+package cloud.kitelang.gradle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ZipArchiveWriterTest {
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesEntriesReadableByZipFile() throws IOException {
+        var archive = dir.resolve("small.jar");
+        var text = "hello ".repeat(100);
+        try (var writer = new ZipArchiveWriter(Files.newOutputStream(archive))) {
+            writer.write(ZipArchiveWriter.compress("dir/", new byte[0], Deflater.DEFAULT_COMPRESSION));
+            writer.write(ZipArchiveWriter.compress("dir/text.txt", text.getBytes(), Deflater.DEFAULT_COMPRESSION));
+            writer.write(ZipArchiveWriter.compress("dir/tiny.bin", new byte[]{1}, Deflater.DEFAULT_COMPRESSION));
+        }
+
+        try (var zip = new ZipFile(archive.toFile())) {
+            assertEquals(3, zip.size());
+            var entry = zip.getEntry("dir/text.txt");
+            assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+            assertEquals(text, new String(zip.getInputStream(entry).readAllBytes()));
+            // Content that doesn't shrink is stored
+            assertEquals(ZipEntry.STORED, zip.getEntry("dir/tiny.bin").getMethod());
+        }
+        var bytes = ByteBuffer.wrap(Files.readAllBytes(archive)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(3, bytes.getShort(endOfCentralDirectory(bytes) + 10) & 0xFFFF);
+    }
+
+    @Test
+    void writesZip64RecordsBeyond65535Entries() throws IOException {
+        var archive = dir.resolve("many.jar");
+        var entries = 70_000;
+        try (var writer = new ZipArchiveWriter(Files.newOutputStream(archive))) {
+            for (int i = 0; i < entries; i++) {
+                writer.write(ZipArchiveWriter.compress("entry-" + i, new byte[]{(byte) i}, Deflater.DEFAULT_COMPRESSION));
+            }
+        }
+
+        var bytes = ByteBuffer.wrap(Files.readAllBytes(archive)).order(ByteOrder.LITTLE_ENDIAN);
+        var end = endOfCentralDirectory(bytes);
+        assertEquals(0xFFFF, bytes.getShort(end + 10) & 0xFFFF, "the 16-bit entry count is saturated");
+
+        // The ZIP64 locator precedes the end record and points at the ZIP64 end record
+        var zip64End = (int) bytes.getLong(end - 20 + 8);
+        assertEquals(ZIP64_END_OF_CENTRAL_DIRECTORY, bytes.getInt(zip64End));
+        assertEquals(entries, bytes.getLong(zip64End + 32));
+
+        try (var zip = new ZipFile(archive.toFile())) {
+            assertEquals(entries, zip.size());
+            assertEquals(69_999 & 0xFF, zip.getInputStream(zip.getEntry("entry-69999")).read());
+        }
+    }
+
+    /**
+     * Offset of the end of central directory record, which is the last 22 bytes without a comment.
+     */
+    private static int endOfCentralDirectory(ByteBuffer bytes) {
+        var end = bytes.limit() - 22;
+        assertEquals(END_OF_CENTRAL_DIRECTORY, bytes.getInt(end));
+        return end;
+    }
+}